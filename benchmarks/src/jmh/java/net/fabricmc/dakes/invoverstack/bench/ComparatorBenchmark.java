@@ -0,0 +1,47 @@
+package net.fabricmc.dakes.invoverstack.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * {@code ScreenHandler.calculateComparatorOutput(Inventory)}, i.e. the
+ * {@code ScreenHandlerMixin.calculateComparatorOutput} overwrite, on a chest-sized inventory.
+ * <ul>
+ *   <li>{@code scan}: an inventory without a tracked fill, scanned on every read</li>
+ *   <li>{@code warm}: a chest block entity read repeatedly without changes</li>
+ *   <li>{@code mutate}: a chest block entity whose slot 0 gains or loses an item before every read</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ComparatorBenchmark {
+
+    @Param({"empty", "half", "full"})
+    public String fill;
+
+    @Param({"scan", "warm", "mutate"})
+    public String path;
+
+    private IntUnaryOperator workload;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        workload = KnotBootstrap.create("ComparatorWorkload", fill + ":" + path, IntUnaryOperator.class);
+    }
+
+    @Benchmark
+    public int calculateComparatorOutput() {
+        return workload.applyAsInt(cursor++);
+    }
+}
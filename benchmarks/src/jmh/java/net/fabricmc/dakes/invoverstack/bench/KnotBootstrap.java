@@ -0,0 +1,52 @@
+package net.fabricmc.dakes.invoverstack.bench;
+
+import net.fabricmc.api.EnvType;
+import net.fabricmc.loader.impl.launch.knot.Knot;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Boots Fabric's Knot launcher inside the benchmark JVM, the same way fabric-loader-junit does
+ * for tests, so Minecraft classes are loaded with the mod's mixins applied.
+ * <p>
+ * Benchmark classes themselves are loaded by the JMH class loader, so they only talk to
+ * Knot-loaded code through JDK interfaces ({@link java.util.function.IntUnaryOperator} and
+ * friends). Each workload in the {@code workload} package is instantiated through
+ * {@link #create(String, String, Class)}.
+ * </p>
+ */
+public final class KnotBootstrap {
+
+    private static final String WORKLOAD_PACKAGE = "net.fabricmc.dakes.invoverstack.bench.workload.";
+
+    private static ClassLoader knotClassLoader;
+
+    private KnotBootstrap() {
+    }
+
+    private static synchronized ClassLoader classLoader() {
+        if (knotClassLoader == null) {
+            EnvType side = EnvType.valueOf(System.getProperty("fabric.side", "client").toUpperCase());
+            knotClassLoader = new Knot(side).init(new String[0]);
+        }
+        Thread.currentThread().setContextClassLoader(knotClassLoader);
+        return knotClassLoader;
+    }
+
+    /**
+     * Instantiates a workload inside Knot.
+     *
+     * @param workload Simple class name in the workload package
+     * @param mode     Passed to the workload's single-string constructor
+     * @param type     JDK interface the workload implements
+     */
+    public static <T> T create(String workload, String mode, Class<T> type) {
+        try {
+            Class<?> clazz = Class.forName(WORKLOAD_PACKAGE + workload, true, classLoader());
+            Constructor<?> constructor = clazz.getConstructor(String.class);
+            return type.cast(constructor.newInstance(mode));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create workload " + workload, e);
+        }
+    }
+}
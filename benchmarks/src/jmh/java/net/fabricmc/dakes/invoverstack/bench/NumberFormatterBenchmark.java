@@ -0,0 +1,45 @@
+package net.fabricmc.dakes.invoverstack.bench;
+
+import net.fabricmc.dakes.invoverstack.util.NumberFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code NumberFormatter.formatStackCount} for each label range. Pure Java, so no Knot needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NumberFormatterBenchmark {
+
+    private static final int COUNTS = 256;
+
+    // Lower bound of each display range, see NumberFormatter
+    @Param({"1", "1000", "100000", "1000000", "1000000000"})
+    public int range;
+
+    private final int[] counts = new int[COUNTS];
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        // Spread over the range so results don't hinge on a single value
+        long upper = range == 1 ? 1000 : Math.min((long) range * 100, Integer.MAX_VALUE);
+        for (int i = 0; i < COUNTS; i++) {
+            counts[i] = (int) (range + (upper - range) * i / COUNTS);
+        }
+    }
+
+    @Benchmark
+    public String formatStackCount() {
+        return NumberFormatter.formatStackCount(counts[cursor++ & (COUNTS - 1)]);
+    }
+}
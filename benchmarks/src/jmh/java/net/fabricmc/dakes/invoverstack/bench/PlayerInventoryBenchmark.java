@@ -0,0 +1,43 @@
+package net.fabricmc.dakes.invoverstack.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The overwritten {@code PlayerInventory} search and insert methods on an almost full inventory.
+ * <ul>
+ *   <li>{@code slotWithRoom}: {@code getOccupiedSlotWithRoomForStack}, target near the end</li>
+ *   <li>{@code emptySlot}: {@code getEmptySlot}, only the last slot is free</li>
+ *   <li>{@code insertMerge}: {@code insertStack} merging into a partial stack, counts restored after</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlayerInventoryBenchmark {
+
+    @Param({"slotWithRoom", "emptySlot", "insertMerge"})
+    public String operation;
+
+    private IntUnaryOperator workload;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        workload = KnotBootstrap.create("PlayerInventoryWorkload", operation, IntUnaryOperator.class);
+    }
+
+    @Benchmark
+    public int run() {
+        return workload.applyAsInt(cursor++);
+    }
+}
@@ -0,0 +1,39 @@
+package net.fabricmc.dakes.invoverstack.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * {@code StackContext.getEffectiveMaxStackSize} over a mix of stackable, damageable and
+ * blacklisted items, for each inventory kind.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StackContextBenchmark {
+
+    @Param({"player", "container", "null"})
+    public String inventory;
+
+    private IntUnaryOperator workload;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        workload = KnotBootstrap.create("StackContextWorkload", inventory, IntUnaryOperator.class);
+    }
+
+    @Benchmark
+    public int getEffectiveMaxStackSize() {
+        return workload.applyAsInt(cursor++);
+    }
+}
@@ -0,0 +1,52 @@
+package net.fabricmc.dakes.invoverstack.bench;
+
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Replays a transfer trace dumped with {@code /invoverstack trace dump} through the mod's limit
+ * resolution, inside Knot so the mixins apply as in game.
+ * <p>
+ * Prints every record whose limit, amount or resulting count disagrees with the resolution
+ * under its recorded config, then times the resolution over the recorded workload. Exits with
+ * status 1 on any mismatch, so a captured session can serve as a regression test.
+ * {@code ./gradlew :benchmarks:replayTrace -Ptrace=<trace.bin> [-Piterations=<n>]}
+ * </p>
+ */
+public final class TraceReplayMain {
+
+    private TraceReplayMain() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: TraceReplayMain <trace.bin> [iterations]");
+            System.exit(2);
+        }
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        Object workload = KnotBootstrap.create("TraceReplayWorkload", args[0], Object.class);
+        LongSupplier pass = (LongSupplier) workload;
+        int records = ((IntSupplier) workload).getAsInt();
+        @SuppressWarnings("unchecked")
+        String report = ((Supplier<String>) workload).get();
+        System.out.println(report);
+
+        // Warm up the resolution path before timing it
+        long mismatches = 0;
+        for (int i = 0; i < Math.max(iterations / 10, 1); i++) {
+            mismatches = pass.getAsLong();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            mismatches = pass.getAsLong();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%d records replayed, %d iterations in %.2f ms (%.1f ns/record)%n",
+                records, iterations, elapsed / 1_000_000.0,
+                (double) elapsed / ((long) iterations * Math.max(records, 1)));
+
+        System.exit(mismatches > 0 ? 1 : 0);
+    }
+}
@@ -0,0 +1,70 @@
+package net.fabricmc.dakes.invoverstack.bench.workload;
+
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.ChestBlockEntity;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.screen.ScreenHandler;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Mode is {@code <fill>:<path>}, see {@code ComparatorBenchmark}.
+ */
+public final class ComparatorWorkload implements IntUnaryOperator {
+
+    private static final int SIZE = 27;
+
+    private final Inventory inventory;
+    private final boolean mutate;
+    // Empty fill has no stack to change in place, slot 0 alternates between this and empty
+    private final ItemStack toggle;
+
+    public ComparatorWorkload(String mode) {
+        GameBootstrap.initialize();
+
+        String[] parts = mode.split(":");
+        int filled = switch (parts[0]) {
+            case "empty" -> 0;
+            case "half" -> SIZE / 2;
+            case "full" -> SIZE;
+            default -> throw new IllegalArgumentException("Unknown fill " + parts[0]);
+        };
+        inventory = switch (parts[1]) {
+            case "scan" -> new SimpleInventory(SIZE);
+            case "warm", "mutate" -> new ChestBlockEntity(BlockPos.ORIGIN, Blocks.CHEST.getDefaultState());
+            default -> throw new IllegalArgumentException("Unknown path " + parts[1]);
+        };
+        mutate = parts[1].equals("mutate");
+        toggle = filled == 0 ? new ItemStack(Items.COBBLESTONE) : null;
+
+        ItemStack[] mix = GameBootstrap.stackMix(filled);
+        for (int slot = 0; slot < filled; slot++) {
+            ItemStack stack = mix[slot];
+            stack.setCount(stack.getMaxCount());
+            inventory.setStack(slot, stack);
+        }
+
+        // The first read builds the tracked fill, so warm reads start warm
+        ScreenHandler.calculateComparatorOutput(inventory);
+    }
+
+    @Override
+    public int applyAsInt(int operand) {
+        if (mutate) {
+            // One item in or out per read, like a hopper feeding the chest
+            if (toggle != null) {
+                inventory.setStack(0, (operand & 1) == 0 ? toggle : ItemStack.EMPTY);
+            } else if ((operand & 1) == 0) {
+                inventory.getStack(0).decrement(1);
+            } else {
+                inventory.getStack(0).increment(1);
+            }
+            inventory.markDirty();
+        }
+        return ScreenHandler.calculateComparatorOutput(inventory);
+    }
+}
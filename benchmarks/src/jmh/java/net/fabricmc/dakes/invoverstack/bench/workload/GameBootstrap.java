@@ -0,0 +1,51 @@
+package net.fabricmc.dakes.invoverstack.bench.workload;
+
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.fabricmc.dakes.invoverstack.config.ModConfig;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+
+/**
+ * Initializes registries and publishes the default config, without touching the config file.
+ * Loaded inside Knot, like every class in this package.
+ */
+final class GameBootstrap {
+
+    // Stackable, low stack size, damageable and blacklisted items, in that rough proportion
+    static final Item[] ITEM_MIX = {
+            Items.STONE, Items.COBBLESTONE, Items.DIRT, Items.OAK_LOG, Items.REDSTONE, Items.IRON_INGOT,
+            Items.WHEAT_SEEDS, Items.ENDER_PEARL, Items.SNOWBALL, Items.DIAMOND_PICKAXE, Items.SHULKER_BOX
+    };
+
+    private static boolean initialized = false;
+
+    private GameBootstrap() {
+    }
+
+    static synchronized void initialize() {
+        if (initialized) {
+            return;
+        }
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+
+        ConfigManager.publish(CompiledConfig.compile(new ModConfig()));
+        ConfigManager.onRegistriesFrozen();
+        initialized = true;
+    }
+
+    /**
+     * @return A repeating mix of stacks of {@link #ITEM_MIX}, count 1
+     */
+    static ItemStack[] stackMix(int size) {
+        ItemStack[] stacks = new ItemStack[size];
+        for (int i = 0; i < size; i++) {
+            stacks[i] = new ItemStack(ITEM_MIX[i % ITEM_MIX.length]);
+        }
+        return stacks;
+    }
+}
@@ -0,0 +1,61 @@
+package net.fabricmc.dakes.invoverstack.bench.workload;
+
+import net.fabricmc.dakes.invoverstack.util.StackContext;
+import net.minecraft.entity.EntityEquipment;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+
+import java.util.function.IntUnaryOperator;
+
+public final class PlayerInventoryWorkload implements IntUnaryOperator {
+
+    // The only slot with room, and the only empty slot
+    private static final int ROOM_SLOT = 30;
+    private static final int EMPTY_SLOT = PlayerInventory.MAIN_SIZE - 1;
+    private static final int ROOM_COUNT = 100;
+    private static final int INSERT_COUNT = 10;
+
+    private final String operation;
+    private final PlayerInventory inventory;
+    private final ItemStack probe;
+    private final ItemStack target;
+
+    public PlayerInventoryWorkload(String operation) {
+        GameBootstrap.initialize();
+        this.operation = operation;
+        this.inventory = new PlayerInventory(null, new EntityEquipment());
+
+        // Every slot full except ROOM_SLOT (partial granite, not in the mix) and EMPTY_SLOT
+        ItemStack[] mix = GameBootstrap.stackMix(PlayerInventory.MAIN_SIZE);
+        for (int slot = 0; slot < EMPTY_SLOT; slot++) {
+            ItemStack stack = slot == ROOM_SLOT ? new ItemStack(Items.GRANITE) : mix[slot];
+            stack.setCount(slot == ROOM_SLOT ? ROOM_COUNT : StackContext.getEffectiveMaxStackSize(stack, inventory));
+            inventory.setStack(slot, stack);
+        }
+
+        this.probe = new ItemStack(Items.GRANITE, INSERT_COUNT);
+        this.target = inventory.getStack(ROOM_SLOT);
+
+        if (!operation.equals("slotWithRoom") && !operation.equals("emptySlot") && !operation.equals("insertMerge")) {
+            throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    @Override
+    public int applyAsInt(int operand) {
+        switch (operation) {
+            case "slotWithRoom":
+                return inventory.getOccupiedSlotWithRoomForStack(probe);
+            case "emptySlot":
+                return inventory.getEmptySlot();
+            default:
+                inventory.insertStack(probe);
+                int merged = target.getCount();
+                // Restore both stacks so every invocation does the same work
+                probe.setCount(INSERT_COUNT);
+                target.setCount(ROOM_COUNT);
+                return merged;
+        }
+    }
+}
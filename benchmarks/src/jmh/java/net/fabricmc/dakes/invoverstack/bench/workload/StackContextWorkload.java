@@ -0,0 +1,34 @@
+package net.fabricmc.dakes.invoverstack.bench.workload;
+
+import net.fabricmc.dakes.invoverstack.util.StackContext;
+import net.minecraft.entity.EntityEquipment;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.ItemStack;
+
+import java.util.function.IntUnaryOperator;
+
+public final class StackContextWorkload implements IntUnaryOperator {
+
+    private static final int STACKS = 64;
+
+    private final ItemStack[] stacks;
+    private final Inventory inventory;
+
+    public StackContextWorkload(String inventory) {
+        GameBootstrap.initialize();
+        this.stacks = GameBootstrap.stackMix(STACKS);
+        this.inventory = switch (inventory) {
+            case "player" -> new PlayerInventory(null, new EntityEquipment());
+            case "container" -> new SimpleInventory(27);
+            case "null" -> null;
+            default -> throw new IllegalArgumentException("Unknown inventory " + inventory);
+        };
+    }
+
+    @Override
+    public int applyAsInt(int operand) {
+        return StackContext.getEffectiveMaxStackSize(stacks[operand & (STACKS - 1)], inventory);
+    }
+}
@@ -0,0 +1,54 @@
+package net.fabricmc.dakes.invoverstack.bench.workload;
+
+import net.fabricmc.dakes.invoverstack.trace.TraceReplay;
+import net.fabricmc.dakes.invoverstack.trace.TraceVerifier;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Mode is the path of a dumped transfer trace, see {@code TraceReplayMain}.
+ * <p>
+ * {@link #get()} verifies the trace and describes every mismatch, {@link #getAsLong()} runs one
+ * replay pass and returns its mismatch count, {@link #getAsInt()} is the number of records a
+ * pass resolves.
+ * </p>
+ */
+public final class TraceReplayWorkload implements LongSupplier, IntSupplier, Supplier<String> {
+
+    private final TraceReplay replay;
+
+    public TraceReplayWorkload(String trace) {
+        GameBootstrap.initialize();
+        try {
+            this.replay = TraceReplay.load(Path.of(trace));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read trace " + trace, e);
+        }
+    }
+
+    @Override
+    public String get() {
+        TraceVerifier.Result result = replay.verify();
+        StringBuilder report = new StringBuilder(String.format("%d records: %d verified, %d skipped, %d mismatches",
+                replay.size(), result.verified(), result.skipped(), result.mismatches()));
+        for (String example : result.examples()) {
+            report.append(System.lineSeparator()).append("  mismatch ").append(example);
+        }
+        return report.toString();
+    }
+
+    @Override
+    public long getAsLong() {
+        return replay.replay();
+    }
+
+    @Override
+    public int getAsInt() {
+        return replay.replayable();
+    }
+}
@@ -1,10 +1,14 @@
 package net.fabricmc.dakes.invoverstack;
 
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.dakes.invoverstack.network.CountDeltaClient;
 
 public class InvOverstackClient implements ClientModInitializer {
 	@Override
 	public void onInitializeClient() {
+		// Advertises support for count-only slot updates to the server
+		CountDeltaClient.register();
+
 		InvOverstackMod.LOGGER.info("InvOverstack client initialized - Enhanced rendering enabled");
 
 		// TODO Phase 7: Implement client-side enhancements
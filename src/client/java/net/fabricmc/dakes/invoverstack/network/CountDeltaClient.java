@@ -0,0 +1,57 @@
+package net.fabricmc.dakes.invoverstack.network;
+
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.minecraft.client.network.ClientPlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.screen.PlayerScreenHandler;
+import net.minecraft.screen.ScreenHandler;
+
+/**
+ * Applies {@link CountDeltaPayload}s sent by the server.
+ * Registering the receiver is what tells the server this client understands count-only updates.
+ */
+public final class CountDeltaClient {
+
+	private CountDeltaClient() {
+	}
+
+	public static void register() {
+		ClientPlayNetworking.registerGlobalReceiver(CountDeltaPayload.ID,
+				(payload, context) -> apply(context.player(), payload.data()));
+	}
+
+	private static void apply(ClientPlayerEntity player, int[] data) {
+		int i = 0;
+		while (i + CountDeltaPayload.HEADER_INTS <= data.length) {
+			int syncId = data[i + CountDeltaPayload.SYNC_ID];
+			int revision = data[i + CountDeltaPayload.REVISION];
+			int pairs = data[i + CountDeltaPayload.PAIRS];
+			i += CountDeltaPayload.HEADER_INTS;
+
+			// Same handler resolution as vanilla slot updates; stale sections are skipped
+			ScreenHandler handler = null;
+			if (syncId == 0) {
+				handler = player.playerScreenHandler;
+			} else if (player.currentScreenHandler.syncId == syncId) {
+				handler = player.currentScreenHandler;
+			}
+
+			for (int pair = 0; pair < pairs && i + 1 < data.length; pair++, i += 2) {
+				int slot = data[i];
+				int count = data[i + 1];
+				if (handler == null || slot < 0 || slot >= handler.slots.size()) {
+					continue;
+				}
+
+				ItemStack stack = handler.getSlot(slot).getStack();
+				if (stack.isEmpty()) {
+					continue;
+				}
+				if (syncId == 0 && PlayerScreenHandler.isInHotbar(slot) && count > stack.getCount()) {
+					stack.setBobbingAnimationTime(5);
+				}
+				handler.setStackInSlot(slot, revision, stack.copyWithCount(count));
+			}
+		}
+	}
+}
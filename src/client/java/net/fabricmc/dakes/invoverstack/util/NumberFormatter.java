@@ -2,6 +2,32 @@ package net.fabricmc.dakes.invoverstack.util;
 
 public class NumberFormatter {
 
+	// Every range maps to a small set of labels, so all of them are precomputed
+	private static final String[] UNITS = new String[1000];
+	private static final String[] THOUSANDS = new String[100];
+	private static final String[] MILLIONS = new String[1000];
+	// Indexed by the count rounded to tenths of a million (1-10) and of a billion (10-21)
+	private static final String[] TENTHS_OF_MILLIONS = new String[11];
+	private static final String[] TENTHS_OF_BILLIONS = new String[22];
+
+	static {
+		for (int i = 0; i < UNITS.length; i++) {
+			UNITS[i] = format(i);
+		}
+		for (int i = 1; i < THOUSANDS.length; i++) {
+			THOUSANDS[i] = format(i * 1000);
+		}
+		for (int i = 1; i < MILLIONS.length; i++) {
+			MILLIONS[i] = format(i * 1000000);
+		}
+		for (int i = 1; i < TENTHS_OF_MILLIONS.length; i++) {
+			TENTHS_OF_MILLIONS[i] = String.format("%.1fkk", i / 10.0);
+		}
+		for (int i = 10; i < TENTHS_OF_BILLIONS.length; i++) {
+			TENTHS_OF_BILLIONS[i] = String.format("%.1fb", i / 10.0);
+		}
+	}
+
 	/**
 	 * Format stack count for display to prevent cramping.
 	 * - 1-999: Display as-is
@@ -9,8 +35,28 @@ public class NumberFormatter {
 	 * - 100000-999999: Display as "0.1kk", "0.2kk", "0.9kk"
 	 * - 1000000-999999999: Display as "1kk", "2kk", "999kk"
 	 * - 1000000000+: Display as "1b", "2b", "999b", etc.
+	 * <p>
+	 * Called every frame for every visible large stack, so every label comes from a table;
+	 * formatting allocates nothing. The one-decimal labels round half up, like {@code %.1f}.
 	 */
 	public static String formatStackCount(int count) {
+		if (count < 0) {
+			return String.valueOf(count);
+		} else if (count < 1000) {
+			return UNITS[count];
+		} else if (count < 100000) {
+			return THOUSANDS[count / 1000];
+		} else if (count < 1000000) {
+			// Halves of a tenth, rounded up: 100000-149999 -> 0.1kk, 950000-999999 -> 1.0kk
+			return TENTHS_OF_MILLIONS[(count / 50000 + 1) / 2];
+		} else if (count < 1000000000) {
+			return MILLIONS[count / 1000000];
+		}
+		// Integer.MAX_VALUE is 2.1b, so the 10b+ labels are never reached
+		return TENTHS_OF_BILLIONS[(count / 50000000 + 1) / 2];
+	}
+
+	private static String format(int count) {
 		if (count < 1000) {
 			return String.valueOf(count);
 		} else if (count < 100000) {
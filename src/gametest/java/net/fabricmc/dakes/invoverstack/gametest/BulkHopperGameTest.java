@@ -0,0 +1,91 @@
+package net.fabricmc.dakes.invoverstack.gametest;
+
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.fabricmc.dakes.invoverstack.config.ModConfig;
+import net.fabricmc.fabric.api.gametest.v1.GameTest;
+import net.minecraft.block.Block;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.HopperBlock;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.block.entity.HopperBlockEntity;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.test.TestContext;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+import java.util.function.Consumer;
+
+/**
+ * Bulk hoppers (bulkHopperTransfer) pulling from single-item inventories.
+ * <p>
+ * The chiseled bookshelf and the jukebox return the slot's own stack from
+ * {@code removeStack}, so the stack handed to the hopper is the object that was in the slot.
+ * The items must end up in the hopper and never be voided. Bulk mode is switched on for the
+ * duration of each test; other tests of the batch only see it as a hopper mode that conserves
+ * items too.
+ * </p>
+ */
+public class BulkHopperGameTest {
+
+    private static final int MAX_TICKS = 100;
+
+    private static final BlockPos HOPPER = new BlockPos(1, 2, 1);
+    private static final BlockPos SOURCE = HOPPER.up();
+
+    // Tests of this class currently running; bulk mode stays on until the last one finishes
+    private static int running = 0;
+
+    @GameTest(maxTicks = MAX_TICKS)
+    public void bulkHopperPullsFromChiseledBookshelf(TestContext context) {
+        int books = 3;
+        runPull(context, Blocks.CHISELED_BOOKSHELF, Items.BOOK, books, source -> {
+            for (int slot = 0; slot < books; slot++) {
+                source.setStack(slot, new ItemStack(Items.BOOK));
+            }
+        });
+    }
+
+    @GameTest(maxTicks = MAX_TICKS)
+    public void bulkHopperPullsFromJukebox(TestContext context) {
+        runPull(context, Blocks.JUKEBOX, Items.MUSIC_DISC_CAT, 1,
+                source -> source.setStack(0, new ItemStack(Items.MUSIC_DISC_CAT)));
+    }
+
+    private static void runPull(TestContext context, Block block, Item item, int expected,
+                                Consumer<Inventory> fill) {
+        setBulkMode(++running > 0);
+
+        context.setBlockState(HOPPER, Blocks.HOPPER.getDefaultState().with(HopperBlock.FACING, Direction.DOWN));
+        context.setBlockState(SOURCE, block);
+        Inventory source = (Inventory) context.getBlockEntity(SOURCE, BlockEntity.class);
+        HopperBlockEntity hopper = context.getBlockEntity(HOPPER, HopperBlockEntity.class);
+        fill.accept(source);
+
+        for (int tick = 1; tick < MAX_TICKS; tick++) {
+            context.runAtTick(tick, () -> {
+                int total = source.count(item) + hopper.count(item);
+                context.assertTrue(total == expected, Text.literal(String.format(
+                        "%s: %d items in source and hopper, expected %d", item, total, expected)));
+            });
+        }
+
+        context.addInstantFinalTask(() -> {
+            setBulkMode(--running > 0);
+            context.assertTrue(hopper.count(item) == expected, Text.literal(String.format(
+                    "%s: %d items pulled into the hopper, expected %d", item, hopper.count(item), expected)));
+        });
+    }
+
+    private static void setBulkMode(boolean enabled) {
+        ModConfig config = ConfigManager.getConfig().toModConfig();
+        if (config.bulkHopperTransfer != enabled) {
+            config.bulkHopperTransfer = enabled;
+            ConfigManager.publish(CompiledConfig.compile(config));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package net.fabricmc.dakes.invoverstack.gametest;
+
+import net.fabricmc.fabric.api.gametest.v1.GameTest;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.HopperBlock;
+import net.minecraft.block.entity.ChestBlockEntity;
+import net.minecraft.block.entity.CrafterBlockEntity;
+import net.minecraft.block.entity.HopperBlockEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.test.TestContext;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+/**
+ * A crafter fed logs by a hopper and pulsed with redstone, outputting planks into a chest.
+ * <p>
+ * Exercises {@code CrafterBlockEntityMixin.isValid} on every hopper insert. The crafter is a
+ * container, so its slot must never exceed the vanilla limit, and logs plus planks must be
+ * conserved on every tick.
+ * </p>
+ */
+public class CrafterGameTest {
+
+    private static final int LOGS = 16;
+    private static final int PLANKS_PER_LOG = 4;
+    private static final int PULSE_INTERVAL = 8;
+    private static final int MAX_TICKS = 400;
+
+    // Source chest -> hopper (down) -> crafter (facing north) -> output chest
+    private static final BlockPos CRAFTER = new BlockPos(3, 2, 4);
+    private static final BlockPos HOPPER = CRAFTER.up();
+    private static final BlockPos SOURCE = HOPPER.up();
+    private static final BlockPos OUTPUT = CRAFTER.north();
+    private static final BlockPos POWER = CRAFTER.east();
+
+    @GameTest(maxTicks = MAX_TICKS)
+    public void crafterFedByHopper(TestContext context) {
+        context.setBlockState(SOURCE, Blocks.CHEST);
+        context.setBlockState(HOPPER, Blocks.HOPPER.getDefaultState().with(HopperBlock.FACING, Direction.DOWN));
+        context.setBlockState(CRAFTER, Blocks.CRAFTER);
+        context.setBlockState(OUTPUT, Blocks.CHEST);
+
+        ChestBlockEntity source = context.getBlockEntity(SOURCE, ChestBlockEntity.class);
+        HopperBlockEntity hopper = context.getBlockEntity(HOPPER, HopperBlockEntity.class);
+        CrafterBlockEntity crafter = context.getBlockEntity(CRAFTER, CrafterBlockEntity.class);
+        ChestBlockEntity output = context.getBlockEntity(OUTPUT, ChestBlockEntity.class);
+
+        // Only the top-left slot takes ingredients, so one log makes one plank recipe
+        for (int slot = 1; slot < crafter.size(); slot++) {
+            crafter.setSlotEnabled(slot, false);
+        }
+        source.setStack(0, new ItemStack(Items.OAK_LOG, LOGS));
+
+        TickBudget.Window window = TickBudget.open();
+
+        for (int tick = 1; tick < MAX_TICKS; tick++) {
+            int phase = tick % PULSE_INTERVAL;
+            if (phase == 0) {
+                context.runAtTick(tick, () -> context.setBlockState(POWER, Blocks.REDSTONE_BLOCK));
+            } else if (phase == PULSE_INTERVAL / 2) {
+                context.runAtTick(tick, () -> context.setBlockState(POWER, Blocks.AIR));
+            }
+
+            context.runAtTick(tick, () -> TickBudget.untimed(() -> {
+                ItemStack ingredients = crafter.getStack(0);
+                context.assertTrue(ingredients.getCount() <= ingredients.getMaxCount(), Text.literal(
+                        "Crafter slot holds " + ingredients.getCount() + ", above the vanilla limit"));
+
+                int logs = source.count(Items.OAK_LOG) + hopper.count(Items.OAK_LOG) + crafter.count(Items.OAK_LOG);
+                int planks = output.count(Items.OAK_PLANKS);
+                context.assertTrue(logs * PLANKS_PER_LOG + planks == LOGS * PLANKS_PER_LOG, Text.literal(String.format(
+                        "%d logs and %d planks, expected %d planks in total", logs, planks, LOGS * PLANKS_PER_LOG)));
+            }));
+        }
+
+        context.addInstantFinalTask(() -> {
+            context.assertTrue(output.count(Items.OAK_PLANKS) == LOGS * PLANKS_PER_LOG, Text.literal(String.format(
+                    "%d planks crafted, expected %d", output.count(Items.OAK_PLANKS), LOGS * PLANKS_PER_LOG)));
+            window.assertWithinBudget(context);
+        });
+    }
+}
@@ -0,0 +1,142 @@
+package net.fabricmc.dakes.invoverstack.gametest;
+
+import net.fabricmc.fabric.api.gametest.v1.GameTest;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.HopperBlock;
+import net.minecraft.block.entity.ChestBlockEntity;
+import net.minecraft.block.entity.HopperBlockEntity;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.test.TestContext;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A 64-hopper chain snaking over one layer of the test area, from a source chest to a
+ * destination chest.
+ * <p>
+ * Every tick the items in the chain are counted, so a transfer that voids or duplicates
+ * items fails on the tick it happens; the counting is excluded from the tick budget.
+ * {@code runGameTest} exercises the vanilla path ({@code HopperTransferMixin});
+ * {@code runGameTestLithium} loads Lithium, so the same tests go through
+ * {@code HopperHelperMixin}. That run sets {@code invoverstack.gametest.lithium}, and the tests
+ * fail if Lithium is not actually loaded, rather than testing the vanilla path twice.
+ * </p>
+ */
+public class HopperChainGameTest {
+
+    private static final int SIDE = 8;
+    private static final int HOPPER_Y = 2;
+    // A hopper moves one item every 8 ticks
+    private static final int MAX_TICKS = 1800;
+
+    private static final boolean EXPECT_LITHIUM = Boolean.getBoolean("invoverstack.gametest.lithium");
+
+    private static final BlockPos SOURCE = new BlockPos(0, HOPPER_Y + 1, 0);
+    private static final BlockPos DESTINATION = new BlockPos(0, HOPPER_Y - 1, SIDE - 1);
+
+    /**
+     * A single item type: after the first item every transfer merges into a partial stack.
+     */
+    @GameTest(maxTicks = MAX_TICKS)
+    public void hopperChainSingleItem(TestContext context) {
+        runChain(context, new Item[]{Items.COBBLESTONE}, 64);
+    }
+
+    /**
+     * Interleaved item types: hoppers hold several stacks, so transfers hit empty slots,
+     * merges and refused (mismatched) slots.
+     */
+    @GameTest(maxTicks = MAX_TICKS)
+    public void hopperChainMixedItems(TestContext context) {
+        runChain(context, new Item[]{Items.COBBLESTONE, Items.DIRT, Items.ENDER_PEARL, Items.REDSTONE}, 16);
+    }
+
+    private static void runChain(TestContext context, Item[] items, int perItem) {
+        List<BlockPos> chain = buildChain(context);
+
+        context.setBlockState(SOURCE, Blocks.CHEST);
+        context.setBlockState(DESTINATION, Blocks.CHEST);
+        ChestBlockEntity source = context.getBlockEntity(SOURCE, ChestBlockEntity.class);
+        ChestBlockEntity destination = context.getBlockEntity(DESTINATION, ChestBlockEntity.class);
+
+        // One item per source slot, round robin over the item types
+        int slot = 0;
+        for (int i = 0; i < perItem; i++) {
+            for (Item item : items) {
+                ItemStack existing = source.getStack(slot % source.size());
+                if (existing.isEmpty()) {
+                    source.setStack(slot % source.size(), new ItemStack(item));
+                } else {
+                    existing.increment(1);
+                }
+                slot++;
+            }
+        }
+
+        List<Inventory> inventories = new ArrayList<>();
+        inventories.add(source);
+        for (BlockPos pos : chain) {
+            inventories.add(context.getBlockEntity(pos, HopperBlockEntity.class));
+        }
+        inventories.add(destination);
+
+        boolean lithium = FabricLoader.getInstance().isModLoaded("lithium");
+        context.assertTrue(lithium == EXPECT_LITHIUM, Text.literal(String.format(
+                "Lithium loaded: %b, expected %b", lithium, EXPECT_LITHIUM)));
+        TickBudget.Window window = TickBudget.open();
+
+        for (int tick = 1; tick < MAX_TICKS; tick++) {
+            context.runAtTick(tick, () -> TickBudget.untimed(() -> {
+                for (Item item : items) {
+                    int total = 0;
+                    for (Inventory inventory : inventories) {
+                        total += inventory.count(item);
+                    }
+                    context.assertTrue(total == perItem, Text.literal(String.format(
+                            "%s: %d items in the chain, expected %d (lithium=%b)", item, total, perItem, lithium)));
+                }
+            }));
+        }
+
+        context.addInstantFinalTask(() -> {
+            for (Item item : items) {
+                context.assertTrue(destination.count(item) == perItem, Text.literal(String.format(
+                        "%s: %d items arrived, expected %d", item, destination.count(item), perItem)));
+            }
+            window.assertWithinBudget(context);
+        });
+    }
+
+    /**
+     * Places the hoppers in a snake: rows alternate east and west, each row ends with a hopper
+     * pointing south into the next row, and the last one points down into the destination.
+     */
+    private static List<BlockPos> buildChain(TestContext context) {
+        List<BlockPos> chain = new ArrayList<>(SIDE * SIDE);
+        for (int z = 0; z < SIDE; z++) {
+            boolean east = (z & 1) == 0;
+            for (int i = 0; i < SIDE; i++) {
+                int x = east ? i : SIDE - 1 - i;
+                Direction facing;
+                if (i < SIDE - 1) {
+                    facing = east ? Direction.EAST : Direction.WEST;
+                } else {
+                    facing = z < SIDE - 1 ? Direction.SOUTH : Direction.DOWN;
+                }
+
+                BlockPos pos = new BlockPos(x, HOPPER_Y, z);
+                context.setBlockState(pos, Blocks.HOPPER.getDefaultState().with(HopperBlock.FACING, facing));
+                chain.add(pos);
+            }
+        }
+        return chain;
+    }
+}
@@ -0,0 +1,30 @@
+package net.fabricmc.dakes.invoverstack.gametest;
+
+import net.fabricmc.api.ModInitializer;
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.fabricmc.dakes.invoverstack.config.ModConfig;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+
+/**
+ * Test-only initializer: measures server tick times for {@link TickBudget} and publishes the
+ * config the tests expect (without writing it to disk).
+ */
+public class InvOverstackGameTestMod implements ModInitializer {
+
+    // Shift-craft test fills the inventory with these at the maximum allowed stack size
+    public static final String MAX_STACK_ITEM = "minecraft:oak_planks";
+
+    @Override
+    public void onInitialize() {
+        ServerTickEvents.START_SERVER_TICK.register(server -> TickBudget.onTickStart());
+        ServerTickEvents.END_SERVER_TICK.register(server -> TickBudget.onTickEnd());
+
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> {
+            ModConfig config = ConfigManager.getConfig().toModConfig();
+            config.perItemOverrides.put(MAX_STACK_ITEM, config.maxAllowedStackSize);
+            ConfigManager.publish(CompiledConfig.compile(config));
+        });
+    }
+}
@@ -0,0 +1,110 @@
+package net.fabricmc.dakes.invoverstack.gametest;
+
+import net.fabricmc.dakes.invoverstack.util.StackContext;
+import net.fabricmc.fabric.api.gametest.v1.GameTest;
+import net.minecraft.entity.ItemEntity;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.test.TestContext;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.GameMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 2,000 single-item entities dropped on one player, who picks them up into oversized stacks.
+ * <p>
+ * The entities first get a few ticks to merge with each other ({@code ItemEntityMixin}),
+ * then every tick each remaining entity touches the player ({@code PlayerInventoryMixin}
+ * insert path). Items in the inventory plus items still on the ground must always add up.
+ * </p>
+ * <p>
+ * The collisions stand in for the player's own entity collision and count against the tick
+ * budget; pruning picked-up entities and the conservation check do not.
+ * </p>
+ */
+public class PickupStormGameTest {
+
+    private static final Item[] ITEMS = {Items.COBBLESTONE, Items.DIRT, Items.ENDER_PEARL, Items.WHEAT_SEEDS};
+    private static final int ENTITIES = 2000;
+    private static final int PICKUP_DELAY = 20;
+    private static final int MAX_TICKS = 200;
+
+    @GameTest(maxTicks = MAX_TICKS)
+    public void pickupStorm(TestContext context) {
+        ServerWorld world = context.getWorld();
+        ServerPlayerEntity player = context.createMockCreativeServerPlayerInWorld();
+        player.changeGameMode(GameMode.SURVIVAL);
+        PlayerInventory inventory = player.getInventory();
+
+        Vec3d center = context.getAbsolute(new Vec3d(4, 2, 4));
+        List<ItemEntity> entities = new ArrayList<>(ENTITIES);
+        for (int i = 0; i < ENTITIES; i++) {
+            // 20x20 grid, 0.2 blocks apart, so most entities are within merge range of others
+            double x = center.x - 2 + (i % 20) * 0.2;
+            double z = center.z - 2 + (i / 20 % 20) * 0.2;
+            ItemEntity entity = new ItemEntity(world, x, center.y, z, new ItemStack(ITEMS[i % ITEMS.length]));
+            entity.setVelocity(Vec3d.ZERO);
+            entity.setPickupDelay(PICKUP_DELAY);
+            world.spawnEntity(entity);
+            entities.add(entity);
+        }
+
+        int perItem = ENTITIES / ITEMS.length;
+        TickBudget.Window window = TickBudget.open();
+
+        for (int tick = 1; tick < MAX_TICKS; tick++) {
+            context.runAtTick(tick, () -> {
+                for (ItemEntity entity : entities) {
+                    if (!entity.isRemoved()) {
+                        entity.onPlayerCollision(player);
+                    }
+                }
+                TickBudget.untimed(() -> {
+                    entities.removeIf(ItemEntity::isRemoved);
+                    assertConserved(context, inventory, entities, perItem);
+                });
+            });
+        }
+
+        context.addInstantFinalTask(() -> {
+            for (Item item : ITEMS) {
+                context.assertTrue(inventory.count(item) == perItem, Text.literal(String.format(
+                        "%s: %d picked up, expected %d", item, inventory.count(item), perItem)));
+            }
+            window.assertWithinBudget(context);
+        });
+    }
+
+    private static void assertConserved(TestContext context, PlayerInventory inventory, List<ItemEntity> entities, int perItem) {
+        for (ItemStack stack : inventory.getMainStacks()) {
+            int limit = StackContext.getEffectiveMaxStackSize(stack, inventory);
+            context.assertTrue(stack.getCount() <= limit, Text.literal(String.format(
+                    "Slot holds %d %s, limit is %d", stack.getCount(), stack.getItem(), limit)));
+        }
+
+        // One pass over the remaining entities for all item types
+        int[] totals = new int[ITEMS.length];
+        for (ItemEntity entity : entities) {
+            ItemStack stack = entity.getStack();
+            for (int i = 0; i < ITEMS.length; i++) {
+                if (stack.isOf(ITEMS[i])) {
+                    totals[i] += stack.getCount();
+                    break;
+                }
+            }
+        }
+
+        for (int i = 0; i < ITEMS.length; i++) {
+            int total = totals[i] + inventory.count(ITEMS[i]);
+            context.assertTrue(total == perItem, Text.literal(String.format(
+                    "%s: %d in inventory and on the ground, expected %d", ITEMS[i], total, perItem)));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package net.fabricmc.dakes.invoverstack.gametest;
+
+import net.fabricmc.dakes.invoverstack.util.StackContext;
+import net.fabricmc.fabric.api.gametest.v1.GameTest;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.screen.PlayerScreenHandler;
+import net.minecraft.screen.slot.SlotActionType;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.test.TestContext;
+import net.minecraft.text.Text;
+import net.minecraft.world.GameMode;
+
+/**
+ * Shift-crafts planks into an inventory of 4096-stacks with room for exactly the output.
+ * <p>
+ * Every insert has to walk past full oversized stacks, which is the worst case for the
+ * {@code SlotMixin} and {@code ScreenHandler.insertItem} paths. The whole shift-click runs
+ * in one tick, so it is timed directly against the tick budget.
+ * </p>
+ */
+public class ShiftCraftGameTest {
+
+    private static final int LOGS = 50;
+    private static final int PLANKS_PER_LOG = 4;
+    private static final int RESULT_SLOT = 0;
+    private static final int FIRST_INPUT_SLOT = 1;
+
+    @GameTest
+    public void shiftCraftIntoNearFullInventory(TestContext context) {
+        ServerPlayerEntity player = context.createMockCreativeServerPlayerInWorld();
+        player.changeGameMode(GameMode.SURVIVAL);
+        PlayerInventory inventory = player.getInventory();
+        PlayerScreenHandler handler = player.playerScreenHandler;
+
+        ItemStack probe = new ItemStack(Items.OAK_PLANKS);
+        int limit = StackContext.getEffectiveMaxStackSize(probe, inventory);
+        context.assertTrue(limit >= PLANKS_PER_LOG * LOGS, Text.literal("Planks limit too low for the test: " + limit));
+
+        // Every main slot full except the last, which has room for exactly the crafted planks
+        int room = PLANKS_PER_LOG * LOGS;
+        for (int slot = 0; slot < PlayerInventory.MAIN_SIZE; slot++) {
+            int count = slot == PlayerInventory.MAIN_SIZE - 1 ? limit - room : limit;
+            inventory.setStack(slot, new ItemStack(Items.OAK_PLANKS, count));
+        }
+        int before = inventory.count(Items.OAK_PLANKS);
+
+        handler.getSlot(FIRST_INPUT_SLOT).setStack(new ItemStack(Items.OAK_LOG, LOGS));
+        context.assertTrue(handler.getSlot(RESULT_SLOT).getStack().isOf(Items.OAK_PLANKS),
+                Text.literal("Crafting result did not update"));
+
+        long start = System.nanoTime();
+        handler.onSlotClick(RESULT_SLOT, 0, SlotActionType.QUICK_MOVE, player);
+        long elapsed = System.nanoTime() - start;
+
+        context.assertTrue(handler.getSlot(FIRST_INPUT_SLOT).getStack().isEmpty(),
+                Text.literal("Logs left in the crafting grid: " + handler.getSlot(FIRST_INPUT_SLOT).getStack()));
+        context.assertTrue(inventory.count(Items.OAK_PLANKS) == before + room, Text.literal(String.format(
+                "%d planks in inventory, expected %d", inventory.count(Items.OAK_PLANKS), before + room)));
+        for (ItemStack stack : inventory.getMainStacks()) {
+            context.assertTrue(stack.getCount() <= limit, Text.literal(String.format(
+                    "Slot holds %d planks, limit is %d", stack.getCount(), limit)));
+        }
+        TickBudget.assertWithinBudget(context, elapsed, "shift-craft");
+
+        context.complete();
+    }
+}
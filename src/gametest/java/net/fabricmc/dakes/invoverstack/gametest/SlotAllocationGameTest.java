@@ -0,0 +1,78 @@
+package net.fabricmc.dakes.invoverstack.gametest;
+
+import net.fabricmc.fabric.api.gametest.v1.GameTest;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.CrafterBlockEntity;
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.screen.slot.Slot;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.test.TestContext;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Asserts that {@code SlotMixin} and {@code CrafterBlockEntityMixin} allocate nothing per call.
+ * <p>
+ * Measures the bytes allocated by the server thread over many calls with HotSpot's per-thread
+ * allocation counter. A cancellable injection would allocate a {@code CallbackInfoReturnable}
+ * (at least 24 bytes) on every call, so the limit of one byte per call leaves room for noise
+ * from the counter itself, but not for a per-call allocation.
+ * </p>
+ */
+public class SlotAllocationGameTest {
+
+    private static final int WARMUP_CALLS = 20_000;
+    private static final int CALLS = 200_000;
+
+    private static final BlockPos CRAFTER = new BlockPos(1, 2, 1);
+
+    @GameTest
+    public void slotLimitsDoNotAllocate(TestContext context) {
+        ServerPlayerEntity player = context.createMockCreativeServerPlayerInWorld();
+        player.getInventory().setStack(0, new ItemStack(Items.COBBLESTONE, 100));
+        Slot playerSlot = new Slot(player.getInventory(), 0, 0, 0);
+
+        SimpleInventory chest = new SimpleInventory(27);
+        chest.setStack(0, new ItemStack(Items.COBBLESTONE, 32));
+        Slot containerSlot = new Slot(chest, 0, 0, 0);
+
+        ItemStack offered = new ItemStack(Items.COBBLESTONE);
+
+        context.setBlockState(CRAFTER, Blocks.CRAFTER);
+        CrafterBlockEntity crafter = context.getBlockEntity(CRAFTER, CrafterBlockEntity.class);
+        crafter.setStack(0, new ItemStack(Items.OAK_LOG, 8));
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+
+        int sink = 0;
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            sink += call(playerSlot, containerSlot, crafter, offered, i);
+        }
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < CALLS; i++) {
+            sink += call(playerSlot, containerSlot, crafter, offered, i);
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        double perCall = (double) allocated / CALLS;
+        context.assertTrue(allocated < CALLS, Text.literal(String.format(
+                "Slot limit hooks allocated %d bytes over %d calls (%.2f B/call), expected none (checksum %d)",
+                allocated, CALLS, perCall, sink)));
+        context.complete();
+    }
+
+    private static int call(Slot playerSlot, Slot containerSlot, CrafterBlockEntity crafter, ItemStack offered, int i) {
+        return switch (i & 3) {
+            case 0 -> playerSlot.getMaxItemCount();
+            case 1 -> playerSlot.getMaxItemCount(offered);
+            case 2 -> containerSlot.getMaxItemCount(offered);
+            default -> crafter.isValid(0, offered) ? 1 : 0;
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package net.fabricmc.dakes.invoverstack.gametest;
+
+import net.minecraft.test.TestContext;
+import net.minecraft.text.Text;
+
+/**
+ * Records server tick durations so tests can assert a per-tick time budget.
+ * <p>
+ * GameTests in a batch run in the same ticks, so a window measures the whole batch: the budget
+ * is a ceiling for the worst-case scenarios together, not for one test in isolation. Override
+ * the default with {@code -Dinvoverstack.gametest.tickBudgetMs=<ms>} on slow CI machines.
+ * </p>
+ * <p>
+ * Tests run their bookkeeping (counting items, conservation asserts) inside the measured ticks;
+ * wrapped in {@link #untimed(Runnable)} it is subtracted, so the budget covers only the game's work.
+ * </p>
+ */
+public final class TickBudget {
+
+    public static final long BUDGET_MILLIS = Long.getLong("invoverstack.gametest.tickBudgetMs", 50);
+
+    // Power of two; windows longer than this only see the most recent ticks
+    private static final int HISTORY = 4096;
+    private static final long[] durations = new long[HISTORY];
+
+    // Server thread only
+    private static long ticks = 0;
+    private static long tickStart = 0;
+    // Time spent in untimed harness work during the current tick
+    private static long excluded = 0;
+
+    private TickBudget() {
+    }
+
+    static void onTickStart() {
+        excluded = 0;
+        tickStart = System.nanoTime();
+    }
+
+    static void onTickEnd() {
+        durations[(int) (ticks & (HISTORY - 1))] = System.nanoTime() - tickStart - excluded;
+        ticks++;
+    }
+
+    /**
+     * Runs test bookkeeping during a tick without counting its time against the tick.
+     */
+    public static void untimed(Runnable work) {
+        long start = System.nanoTime();
+        try {
+            work.run();
+        } finally {
+            excluded += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Starts measuring from the next completed tick.
+     */
+    public static Window open() {
+        return new Window(ticks);
+    }
+
+    public record Window(long firstTick) {
+
+        /**
+         * @return The longest tick completed since the window was opened, in nanoseconds
+         */
+        public long maxTickNanos() {
+            long max = 0;
+            for (long tick = Math.max(firstTick, ticks - HISTORY); tick < ticks; tick++) {
+                max = Math.max(max, durations[(int) (tick & (HISTORY - 1))]);
+            }
+            return max;
+        }
+
+        public void assertWithinBudget(TestContext context) {
+            assertWithinBudget(context, maxTickNanos(), "tick");
+        }
+    }
+
+    /**
+     * Fails the test if a measured duration exceeds {@link #BUDGET_MILLIS}.
+     */
+    public static void assertWithinBudget(TestContext context, long nanos, String what) {
+        double millis = nanos / 1_000_000.0;
+        context.assertTrue(millis <= BUDGET_MILLIS, Text.literal(
+                String.format("Slowest %s took %.2f ms, budget is %d ms", what, millis, BUDGET_MILLIS)));
+    }
+}
@@ -2,9 +2,23 @@ package net.fabricmc.dakes.invoverstack;
 
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.dakes.invoverstack.command.InvOverstackCommand;
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
 import net.fabricmc.dakes.invoverstack.config.ConfigManager;
-import net.fabricmc.dakes.invoverstack.config.ModConfig;
+import net.fabricmc.dakes.invoverstack.config.ConfigWatcher;
+import net.fabricmc.dakes.invoverstack.metrics.PrometheusExporter;
+import net.fabricmc.dakes.invoverstack.network.CountDeltaPayload;
+import net.fabricmc.dakes.invoverstack.network.CountDeltaSync;
+import net.fabricmc.dakes.invoverstack.util.CompactDrops;
+import net.fabricmc.dakes.invoverstack.util.InventoryPolicies;
+import net.fabricmc.dakes.invoverstack.util.StackContext;
+import net.fabricmc.dakes.invoverstack.util.StackNormalizer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.CommonLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerBlockEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,14 +26,12 @@ public class InvOverstackMod implements ModInitializer {
 	public static final String MOD_ID = "invoverstack";
 	public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
 
-	private static ModConfig config;
-
 	@Override
 	public void onInitialize() {
 		LOGGER.info("InvOverstack mod initializing...");
 
 		// Phase 2: Load configuration
-		config = ConfigManager.loadConfig();
+		CompiledConfig config = ConfigManager.loadConfig();
 		LOGGER.info("Configuration loaded - Default stack size: {}, Max allowed: {}, Debug mode: {}",
 				config.defaultMaxStackSize, config.maxAllowedStackSize, config.debugMode);
 
@@ -27,12 +39,44 @@ public class InvOverstackMod implements ModInitializer {
 			LOGGER.warn("DEBUG MODE ENABLED - Verbose logging active!");
 		}
 
+		// Inventory policies registered by other mods (backpacks, fake players, ...)
+		InventoryPolicies.loadProviders();
+
 		// Phase 2: Register commands
 		CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> {
 			InvOverstackCommand.register(dispatcher);
 		});
 		LOGGER.info("Commands registered");
 
+		// Registries are frozen once the server starts - build the flat stack limit table
+		ServerLifecycleEvents.SERVER_STARTING.register(server -> StackContext.rebuildLimitTable());
+
+		// Tag-based limits are resolved when tags are bound, and again on every data pack reload
+		CommonLifecycleEvents.TAGS_LOADED.register((registries, client) -> ConfigManager.onTagsLoaded());
+
+		// Config file watcher: snapshots compiled off-thread are published at tick boundaries
+		ServerTickEvents.START_SERVER_TICK.register(server -> ConfigWatcher.tick());
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> ConfigWatcher.stop());
+
+		// Compact death drops released within a per-tick budget, flushed before the worlds are saved
+		ServerTickEvents.END_SERVER_TICK.register(CompactDrops::tick);
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> CompactDrops.flush());
+
+		// autoNormalize: oversized stacks are clamped within a per-tick time budget after a limit change
+		ServerTickEvents.END_SERVER_TICK.register(StackNormalizer::tick);
+		ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> StackNormalizer.onPlayerJoin(handler.player));
+		ServerBlockEntityEvents.BLOCK_ENTITY_LOAD.register(StackNormalizer::onBlockEntityLoad);
+		ServerBlockEntityEvents.BLOCK_ENTITY_UNLOAD.register(StackNormalizer::onBlockEntityUnload);
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> StackNormalizer.clear());
+
+		// Count-only slot updates for clients running the mod, coalesced into one packet per player and tick
+		PayloadTypeRegistry.playS2C().register(CountDeltaPayload.ID, CountDeltaPayload.CODEC);
+		ServerTickEvents.END_SERVER_TICK.register(CountDeltaSync::tick);
+
+		// Optional Prometheus textfile export of the runtime metrics
+		ServerLifecycleEvents.SERVER_STARTED.register(server -> PrometheusExporter.start(ConfigManager.getConfig()));
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> PrometheusExporter.stop());
+
 		// TODO Phase 3: Register mixins and utilities
 		// TODO Phase 4: Set up transfer handlers
 
@@ -42,9 +86,9 @@ public class InvOverstackMod implements ModInitializer {
 	/**
 	 * Gets the current mod configuration.
 	 *
-	 * @return The active ModConfig instance
+	 * @return The active config snapshot
 	 */
-	public static ModConfig getConfig() {
-		return config;
+	public static CompiledConfig getConfig() {
+		return ConfigManager.getConfig();
 	}
 }
@@ -0,0 +1,39 @@
+package net.fabricmc.dakes.invoverstack.api;
+
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+
+/**
+ * Decides the stack limit InvOverstack applies to an inventory class.
+ * <p>
+ * Use {@link #PLAYER} for inventories that should behave like the player inventory (backpacks,
+ * fake-player wrappers), {@link #CONTAINER} for inventories that must keep vanilla limits, or
+ * implement the method for a custom limit. Register policies through an
+ * {@link InventoryPolicyProvider} entrypoint.
+ * </p>
+ */
+@FunctionalInterface
+public interface InventoryPolicy {
+
+    /**
+     * Configured player inventory limits.
+     */
+    InventoryPolicy PLAYER = (inventory, stack, playerLimit, vanillaMax) -> playerLimit;
+
+    /**
+     * Vanilla limits, the default for every inventory that is not a player inventory.
+     */
+    InventoryPolicy CONTAINER = (inventory, stack, playerLimit, vanillaMax) -> vanillaMax;
+
+    /**
+     * Computes the limit of a stack in an inventory handled by this policy.
+     * Called on hot paths (every slot limit query), so it must be fast and must not allocate.
+     *
+     * @param inventory   The inventory
+     * @param stack       The stack, never empty
+     * @param playerLimit The configured limit of the stack in a player inventory
+     * @param vanillaMax  The vanilla max stack size of the item
+     * @return The limit to apply
+     */
+    int getMaxStackSize(Inventory inventory, ItemStack stack, int playerLimit, int vanillaMax);
+}
@@ -0,0 +1,23 @@
+package net.fabricmc.dakes.invoverstack.api;
+
+/**
+ * Entrypoint for registering {@link InventoryPolicy} instances.
+ * <p>
+ * Declare it in {@code fabric.mod.json}:
+ * </p>
+ * <pre>{@code
+ * "entrypoints": {
+ *   "invoverstack:inventory_policies": ["com.example.MyPolicies"]
+ * }
+ * }</pre>
+ * <p>
+ * Providers are invoked once while InvOverstack initializes.
+ * </p>
+ */
+@FunctionalInterface
+public interface InventoryPolicyProvider {
+
+    String ENTRYPOINT = "invoverstack:inventory_policies";
+
+    void registerPolicies(InventoryPolicyRegistry registry);
+}
@@ -0,0 +1,22 @@
+package net.fabricmc.dakes.invoverstack.api;
+
+import net.minecraft.inventory.Inventory;
+
+/**
+ * Registry handed to {@link InventoryPolicyProvider}s.
+ * <p>
+ * A policy applies to the registered class and all its subclasses, unless a subclass has a policy
+ * of its own. When an inventory class matches several registered types, the nearest
+ * superclass wins over interfaces. {@code PlayerInventory} is registered as
+ * {@link InventoryPolicy#PLAYER} by default; every other inventory is a
+ * {@link InventoryPolicy#CONTAINER}.
+ * </p>
+ */
+public interface InventoryPolicyRegistry {
+
+    /**
+     * @param type   The inventory class or interface
+     * @param policy The policy for it
+     */
+    void register(Class<? extends Inventory> type, InventoryPolicy policy);
+}
@@ -0,0 +1,61 @@
+package net.fabricmc.dakes.invoverstack.api;
+
+import net.fabricmc.dakes.invoverstack.util.StackContext;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+
+/**
+ * Bulk limit queries for sorting mods, storage networks and other integrations.
+ * <p>
+ * Asking {@code Slot.getMaxItemCount} slot by slot looks up the config snapshot and the
+ * inventory's {@link InventoryPolicy} on every call. These methods look both up once per
+ * inventory and return the same limits InvOverstack enforces. Server or client thread only,
+ * like the inventories themselves.
+ * </p>
+ */
+public final class StackLimits {
+
+    private StackLimits() {
+    }
+
+    /**
+     * Fills {@code limits} with the effective limit of every slot of an inventory, for the
+     * stack currently in the slot. Empty slots report 64, like {@code Slot.getMaxItemCount()}.
+     *
+     * @param inventory The inventory
+     * @param limits    Receives one limit per slot, must hold at least {@code inventory.size()} entries
+     * @return The number of entries written, i.e. {@code inventory.size()}
+     * @throws IllegalArgumentException If {@code limits} is too small
+     */
+    public static int fillLimits(Inventory inventory, int[] limits) {
+        if (limits.length < inventory.size()) {
+            throw new IllegalArgumentException("limits has " + limits.length + " entries, inventory has "
+                    + inventory.size() + " slots");
+        }
+        return StackContext.getEffectiveMaxStackSizes(inventory, limits);
+    }
+
+    /**
+     * @param inventory The inventory
+     * @param stack     The stack
+     * @return The effective limit of the stack in any slot of the inventory
+     */
+    public static int getLimit(Inventory inventory, ItemStack stack) {
+        return StackContext.getEffectiveMaxStackSize(stack, inventory);
+    }
+
+    /**
+     * Counts how many items of a stack an insert into the inventory would accept, without
+     * simulating it. Items merge into equal stacks and fill empty slots the stack is valid for,
+     * each up to its effective limit; other than in player inventories, also capped by the
+     * inventory's own {@code getMaxCount(stack)}. For player inventories only the main slots and
+     * the offhand (merging only) count, like item pickups.
+     *
+     * @param inventory The inventory
+     * @param stack     The stack; it is not modified
+     * @return How many of the stack's items fit, between 0 and its count
+     */
+    public static int countFitting(Inventory inventory, ItemStack stack) {
+        return StackContext.countFitting(inventory, stack);
+    }
+}
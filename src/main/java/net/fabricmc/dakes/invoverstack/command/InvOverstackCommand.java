@@ -5,8 +5,15 @@ import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import net.fabricmc.dakes.invoverstack.InvOverstackMod;
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
 import net.fabricmc.dakes.invoverstack.config.ConfigManager;
 import net.fabricmc.dakes.invoverstack.config.ModConfig;
+import net.fabricmc.dakes.invoverstack.metrics.LatencyHistogram;
+import net.fabricmc.dakes.invoverstack.metrics.Metrics;
+import net.fabricmc.dakes.invoverstack.trace.TraceVerifier;
+import net.fabricmc.dakes.invoverstack.trace.TransferTrace;
+import net.fabricmc.dakes.invoverstack.util.StackLimitTable;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.command.argument.IdentifierArgumentType;
 import net.minecraft.item.Item;
 import net.minecraft.registry.Registries;
@@ -14,6 +21,8 @@ import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
 
+import java.nio.file.Path;
+
 import static net.minecraft.server.command.CommandManager.argument;
 import static net.minecraft.server.command.CommandManager.literal;
 
@@ -40,6 +49,22 @@ public class InvOverstackCommand {
                 .then(literal("info")
                         .then(argument("item", IdentifierArgumentType.identifier())
                                 .executes(InvOverstackCommand::executeInfo)))
+                .then(literal("trace")
+                        .then(literal("start")
+                                .executes(context -> executeTraceStart(context, TransferTrace.DEFAULT_CAPACITY))
+                                .then(argument("records", IntegerArgumentType.integer(1, TransferTrace.MAX_CAPACITY))
+                                        .executes(context -> executeTraceStart(context,
+                                                IntegerArgumentType.getInteger(context, "records")))))
+                        .then(literal("stop")
+                                .executes(InvOverstackCommand::executeTraceStop))
+                        .then(literal("dump")
+                                .executes(InvOverstackCommand::executeTraceDump))
+                        .then(literal("verify")
+                                .executes(InvOverstackCommand::executeTraceVerify)))
+                .then(literal("stats")
+                        .executes(InvOverstackCommand::executeStats)
+                        .then(literal("reset")
+                                .executes(InvOverstackCommand::executeStatsReset)))
                 .executes(InvOverstackCommand::executeHelp));
     }
 
@@ -53,6 +78,8 @@ public class InvOverstackCommand {
         source.sendFeedback(() -> Text.literal("§e/invoverstack reload §7- Reload configuration from disk"), false);
         source.sendFeedback(() -> Text.literal("§e/invoverstack set <item> <size> §7- Set custom stack size for an item"), false);
         source.sendFeedback(() -> Text.literal("§e/invoverstack info <item> §7- Show current stack size for an item"), false);
+        source.sendFeedback(() -> Text.literal("§e/invoverstack trace <start|stop|dump|verify> §7- Record transfer decisions to a binary trace"), false);
+        source.sendFeedback(() -> Text.literal("§e/invoverstack stats [reset] §7- Show runtime hook counters and latencies"), false);
 
         return 1;
     }
@@ -68,7 +95,7 @@ public class InvOverstackCommand {
         boolean success = ConfigManager.reloadConfig();
 
         if (success) {
-            ModConfig config = ConfigManager.getConfig();
+            CompiledConfig config = ConfigManager.getConfig();
             source.sendFeedback(() -> Text.literal(
                     String.format("§aConfiguration reloaded successfully! Default: %d, Max: %d",
                             config.defaultMaxStackSize, config.maxAllowedStackSize)), false);
@@ -93,7 +120,7 @@ public class InvOverstackCommand {
             return 0;
         }
 
-        ModConfig config = ConfigManager.getConfig();
+        CompiledConfig config = ConfigManager.getConfig();
 
         // Check if size exceeds max allowed
         if (size > config.maxAllowedStackSize) {
@@ -102,9 +129,10 @@ public class InvOverstackCommand {
             return 0;
         }
 
-        // Set the override
-        config.perItemOverrides.put(itemId.toString(), size);
-        ConfigManager.saveConfig();
+        // Set the override on a copy and publish it as a new snapshot
+        ModConfig edited = config.toModConfig();
+        edited.perItemOverrides.put(itemId.toString(), size);
+        ConfigManager.setConfig(edited);
 
         source.sendFeedback(() -> Text.literal(
                 String.format("§aSet stack size for §e%s §ato §e%d", itemId, size)), true);
@@ -128,7 +156,7 @@ public class InvOverstackCommand {
         }
 
         Item item = Registries.ITEM.get(itemId);
-        ModConfig config = ConfigManager.getConfig();
+        CompiledConfig config = ConfigManager.getConfig();
 
         String itemIdStr = itemId.toString();
         int vanillaMax = item.getMaxCount();
@@ -140,15 +168,123 @@ public class InvOverstackCommand {
         if (configuredSize == -1) {
             source.sendFeedback(() -> Text.literal("§cThis item is BLACKLISTED (no modification)"), false);
         } else {
-            source.sendFeedback(() -> Text.literal("§7Configured stack size: §a" + configuredSize), false);
+            StackLimitTable table = config.getLimitTable();
+            int effectiveSize = StackLimitTable.limit(table.get(item));
+            int rawId = Registries.ITEM.getRawId(item);
+            source.sendFeedback(() -> Text.literal("§7Configured stack size: §a" + effectiveSize), false);
 
             if (config.perItemOverrides.containsKey(itemIdStr)) {
                 source.sendFeedback(() -> Text.literal("§7Source: §ePer-item override"), false);
+            } else if (config.getLimitRules().resolve(itemIdStr, vanillaMax) > 0) {
+                source.sendFeedback(() -> Text.literal("§7Source: §eWildcard rule"), false);
+            } else if (table.getTags().tagLimit(rawId) > 0) {
+                source.sendFeedback(() -> Text.literal("§7Source: §eItem tag override"), false);
+            } else if (!table.getTags().isEnabled(rawId)) {
+                source.sendFeedback(() -> Text.literal("§7Source: §eNot in an enabled item category (vanilla)"), false);
             } else {
                 source.sendFeedback(() -> Text.literal("§7Source: §eDefault configuration"), false);
             }
+
+            if (StackLimitTable.hasComponentRules(table.get(item))) {
+                source.sendFeedback(() -> Text.literal("§7Component rules: §eyes (limit may differ per stack)"), false);
+            }
         }
 
         return 1;
     }
+
+    /**
+     * Executes /invoverstack stats
+     */
+    private static int executeStats(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+
+        source.sendFeedback(() -> Text.literal("§6=== InvOverstack Stats ==="), false);
+        if (!Metrics.isEnabled()) {
+            source.sendFeedback(() -> Text.literal("§cMetrics are disabled. Set metricsEnabled=true in the config to collect them."), false);
+        }
+
+        for (Metrics.Counter counter : Metrics.COUNTERS) {
+            String name = counter.name().replace("invoverstack_", "").replace("_total", "");
+            long value = counter.adder().sum();
+            source.sendFeedback(() -> Text.literal("§7" + name + ": §f" + value), false);
+        }
+
+        for (LatencyHistogram histogram : Metrics.HISTOGRAMS) {
+            long[] counts = histogram.snapshot();
+            long p50 = LatencyHistogram.percentileNanos(counts, 0.5);
+            long p99 = LatencyHistogram.percentileNanos(counts, 0.99);
+            String name = histogram.getName().replace("invoverstack_", "").replace("_seconds", "");
+            source.sendFeedback(() -> Text.literal(
+                    String.format("§7%s: §fp50 <%dns, p99 <%dns §7(1 in %d calls sampled)", name, p50, p99, Metrics.SAMPLE_RATE)), false);
+        }
+
+        return 1;
+    }
+
+    /**
+     * Executes /invoverstack stats reset
+     */
+    private static int executeStatsReset(CommandContext<ServerCommandSource> context) {
+        Metrics.reset();
+        context.getSource().sendFeedback(() -> Text.literal("§aMetrics reset"), true);
+        return 1;
+    }
+
+    /**
+     * Executes /invoverstack trace start [records]
+     */
+    private static int executeTraceStart(CommandContext<ServerCommandSource> context, int records) {
+        TransferTrace.start(records);
+        context.getSource().sendFeedback(() -> Text.literal(
+                String.format("§aRecording transfer trace (ring buffer of %d records)", records)), true);
+        return 1;
+    }
+
+    /**
+     * Executes /invoverstack trace stop
+     */
+    private static int executeTraceStop(CommandContext<ServerCommandSource> context) {
+        TransferTrace.stop();
+        context.getSource().sendFeedback(() -> Text.literal(
+                String.format("§aStopped transfer trace, %d records buffered", TransferTrace.size())), true);
+        return 1;
+    }
+
+    /**
+     * Executes /invoverstack trace dump
+     */
+    private static int executeTraceDump(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        Path directory = FabricLoader.getInstance().getGameDir().resolve("invoverstack-traces");
+
+        TransferTrace.dump(directory).whenComplete((file, error) -> source.getServer().execute(() -> {
+            if (error != null) {
+                InvOverstackMod.LOGGER.error("Failed to dump transfer trace", error);
+                source.sendError(Text.literal("§cFailed to write transfer trace. Check server logs for details."));
+            } else {
+                source.sendFeedback(() -> Text.literal("§aTransfer trace written to §e" + file), false);
+            }
+        }));
+
+        source.sendFeedback(() -> Text.literal("§eWriting transfer trace..."), false);
+        return 1;
+    }
+
+    /**
+     * Executes /invoverstack trace verify
+     */
+    private static int executeTraceVerify(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        TraceVerifier.Result result = TraceVerifier.verify(TransferTrace.snapshot());
+
+        String color = result.mismatches() == 0 ? "§a" : "§c";
+        source.sendFeedback(() -> Text.literal(String.format("%s%d records verified, %d mismatches §7(%d skipped)",
+                color, result.verified(), result.mismatches(), result.skipped())), false);
+        for (String example : result.examples()) {
+            source.sendFeedback(() -> Text.literal("§7" + example), false);
+            InvOverstackMod.LOGGER.warn("[TraceVerifier] Mismatch: {}", example);
+        }
+        return result.mismatches() == 0 ? 1 : 0;
+    }
 }
@@ -0,0 +1,194 @@
+package net.fabricmc.dakes.invoverstack.config;
+
+import net.fabricmc.dakes.invoverstack.util.StackLimitTable;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable, validated snapshot of a {@link ModConfig}.
+ * <p>
+ * {@link ConfigManager} publishes snapshots with a single volatile write, so readers on any
+ * thread always see a fully built configuration. Every snapshot carries a unique, increasing
+ * generation; caches derived from the configuration store the generation they were built for
+ * and rebuild once it no longer matches.
+ * </p>
+ * <p>
+ * To change the configuration, edit a copy from {@link #toModConfig()} and hand it to
+ * {@link ConfigManager#setConfig(ModConfig)}.
+ * </p>
+ */
+public final class CompiledConfig {
+
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+
+    public final long generation;
+    public final int defaultMaxStackSize;
+    public final int maxAllowedStackSize;
+    public final Map<String, Integer> perItemOverrides;
+    public final Map<String, String> stackSizeRules;
+    public final Map<String, Integer> componentRules;
+    public final Set<String> enabledItemCategories;
+    public final Set<String> itemBlacklist;
+    public final boolean autoNormalize;
+    public final boolean debugMode;
+    public final boolean disableEasyShulkerBoxes;
+    public final boolean watchConfigFile;
+    public final boolean verifySlotIndex;
+    public final boolean metricsEnabled;
+    public final String metricsExportFile;
+    public final int metricsExportIntervalSeconds;
+    public final boolean bulkHopperTransfer;
+    public final int bulkHopperItemsPerTransfer;
+    public final int bulkHopperBudgetPerSecond;
+    public final int itemEntityMaxCount;
+    public final boolean compactDrops;
+    public final int dropSpawnBudgetPerTick;
+    public final boolean countDeltaSync;
+    public final int normalizeBudgetMicros;
+
+    // Whether any rule refers to an item tag, see ItemTagSets
+    private final boolean usesItemTags;
+    // stackSizeRules compiled once per snapshot
+    private final LimitRules limitRules;
+
+    // Built lazily (registries may not be frozen yet when a snapshot is compiled)
+    private volatile StackLimitTable limitTable;
+
+    private CompiledConfig(ModConfig config) {
+        this.generation = GENERATIONS.incrementAndGet();
+        this.defaultMaxStackSize = config.defaultMaxStackSize;
+        this.maxAllowedStackSize = config.maxAllowedStackSize;
+        this.perItemOverrides = Map.copyOf(config.perItemOverrides);
+        this.stackSizeRules = Map.copyOf(config.stackSizeRules);
+        this.componentRules = Map.copyOf(config.componentRules);
+        this.enabledItemCategories = Set.copyOf(config.enabledItemCategories);
+        this.itemBlacklist = Set.copyOf(config.itemBlacklist);
+        this.autoNormalize = config.autoNormalize;
+        this.debugMode = config.debugMode;
+        this.disableEasyShulkerBoxes = config.disableEasyShulkerBoxes;
+        this.watchConfigFile = config.watchConfigFile;
+        this.verifySlotIndex = config.verifySlotIndex;
+        this.metricsEnabled = config.metricsEnabled;
+        this.metricsExportFile = config.metricsExportFile;
+        this.metricsExportIntervalSeconds = config.metricsExportIntervalSeconds;
+        this.bulkHopperTransfer = config.bulkHopperTransfer;
+        this.bulkHopperItemsPerTransfer = config.bulkHopperItemsPerTransfer;
+        this.bulkHopperBudgetPerSecond = config.bulkHopperBudgetPerSecond;
+        this.itemEntityMaxCount = config.itemEntityMaxCount;
+        this.compactDrops = config.compactDrops;
+        this.dropSpawnBudgetPerTick = config.dropSpawnBudgetPerTick;
+        this.countDeltaSync = config.countDeltaSync;
+        this.normalizeBudgetMicros = config.normalizeBudgetMicros;
+
+        this.usesItemTags = !enabledItemCategories.isEmpty()
+                || perItemOverrides.keySet().stream().anyMatch(key -> key.startsWith("#"));
+        this.limitRules = LimitRules.compile(stackSizeRules);
+    }
+
+    /**
+     * Validates a copy of the given config and freezes it into a new snapshot.
+     * The passed config is not modified.
+     *
+     * @param config The config to compile
+     * @return The compiled snapshot
+     */
+    public static CompiledConfig compile(ModConfig config) {
+        ModConfig copy = config.copy();
+        copy.validate();
+        return new CompiledConfig(copy);
+    }
+
+    /**
+     * Creates a mutable copy of this snapshot, e.g. for editing and saving.
+     *
+     * @return A new ModConfig with this snapshot's values
+     */
+    public ModConfig toModConfig() {
+        ModConfig config = new ModConfig();
+        config.defaultMaxStackSize = defaultMaxStackSize;
+        config.maxAllowedStackSize = maxAllowedStackSize;
+        config.perItemOverrides.putAll(perItemOverrides);
+        config.stackSizeRules.putAll(stackSizeRules);
+        config.componentRules.putAll(componentRules);
+        config.enabledItemCategories.addAll(enabledItemCategories);
+        config.itemBlacklist.clear();
+        config.itemBlacklist.addAll(itemBlacklist);
+        config.autoNormalize = autoNormalize;
+        config.debugMode = debugMode;
+        config.disableEasyShulkerBoxes = disableEasyShulkerBoxes;
+        config.watchConfigFile = watchConfigFile;
+        config.verifySlotIndex = verifySlotIndex;
+        config.metricsEnabled = metricsEnabled;
+        config.metricsExportFile = metricsExportFile;
+        config.metricsExportIntervalSeconds = metricsExportIntervalSeconds;
+        config.bulkHopperTransfer = bulkHopperTransfer;
+        config.bulkHopperItemsPerTransfer = bulkHopperItemsPerTransfer;
+        config.bulkHopperBudgetPerSecond = bulkHopperBudgetPerSecond;
+        config.itemEntityMaxCount = itemEntityMaxCount;
+        config.compactDrops = compactDrops;
+        config.dropSpawnBudgetPerTick = dropSpawnBudgetPerTick;
+        config.countDeltaSync = countDeltaSync;
+        config.normalizeBudgetMicros = normalizeBudgetMicros;
+        return config;
+    }
+
+    /**
+     * Gets the configured stack size for an item id.
+     *
+     * @param itemId The item id, e.g. "minecraft:stone"
+     * @return The configured size, or -1 if the item is blacklisted
+     */
+    public int getStackSizeForItem(String itemId) {
+        if (itemBlacklist.contains(itemId)) {
+            return -1;
+        }
+
+        Integer override = perItemOverrides.get(itemId);
+        if (override != null) {
+            return Math.min(override, maxAllowedStackSize);
+        }
+
+        return Math.min(defaultMaxStackSize, maxAllowedStackSize);
+    }
+
+    /**
+     * @return The compiled stackSizeRules of this snapshot
+     */
+    public LimitRules getLimitRules() {
+        return limitRules;
+    }
+
+    /**
+     * @return true if limits depend on item tags, so the snapshot must be recompiled when tags change
+     */
+    public boolean usesItemTags() {
+        return usesItemTags;
+    }
+
+    /**
+     * Gets the limit table for this snapshot, building it on first use.
+     *
+     * @return The limit table
+     */
+    public StackLimitTable getLimitTable() {
+        StackLimitTable table = limitTable;
+        if (table == null) {
+            table = rebuildLimitTable();
+        }
+        return table;
+    }
+
+    /**
+     * Rebuilds the limit table from the current registry contents.
+     * Used once registries are frozen, in case the table was built before that.
+     *
+     * @return The new table
+     */
+    public synchronized StackLimitTable rebuildLimitTable() {
+        StackLimitTable table = StackLimitTable.build(this);
+        limitTable = table;
+        return table;
+    }
+}
@@ -3,12 +3,25 @@ package net.fabricmc.dakes.invoverstack.config;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import net.fabricmc.dakes.invoverstack.InvOverstackMod;
+import net.fabricmc.dakes.invoverstack.metrics.Metrics;
+import net.fabricmc.dakes.invoverstack.metrics.PrometheusExporter;
+import net.fabricmc.dakes.invoverstack.trace.TransferTrace;
+import net.fabricmc.dakes.invoverstack.util.DebugLogger;
+import net.fabricmc.dakes.invoverstack.util.StackNormalizer;
 import net.fabricmc.loader.api.FabricLoader;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+/**
+ * Loads, saves and publishes the mod configuration.
+ * <p>
+ * The active configuration is an immutable {@link CompiledConfig} snapshot. It is replaced
+ * with a single volatile write, so readers never observe a half-loaded config and a reload
+ * never blocks the threads reading it.
+ * </p>
+ */
 public class ConfigManager {
 
     private static final String CONFIG_FILE_NAME = "invoverstack.json";
@@ -17,10 +30,13 @@ public class ConfigManager {
             .disableHtmlEscaping()
             .create();
 
-    private static ModConfig config = null;
+    private static volatile CompiledConfig config = null;
+    private static volatile boolean registriesFrozen = false;
+    // Last JSON read from or written to disk, lets the file watcher ignore our own saves
+    private static volatile String lastSyncedJson = null;
     private static Path configPath = null;
 
-    private static Path getConfigPath() {
+    static Path getConfigPath() {
         if (configPath == null) {
             configPath = FabricLoader.getInstance()
                     .getConfigDir()
@@ -29,31 +45,83 @@ public class ConfigManager {
         return configPath;
     }
 
-    public static ModConfig loadConfig() {
+    /**
+     * Parses the config file without publishing it.
+     *
+     * @param path The file to read
+     * @return The parsed config, or null if the file was empty
+     * @throws IOException if the file cannot be read
+     * @throws com.google.gson.JsonParseException if the file is not valid JSON
+     */
+    static ModConfig readConfig(Path path) throws IOException {
+        String json = Files.readString(path);
+        ModConfig parsed = parseConfig(json);
+        lastSyncedJson = json;
+        return parsed;
+    }
+
+    /**
+     * @param json Config JSON, in the config file format
+     * @return The parsed config, or null if the JSON was empty
+     * @throws com.google.gson.JsonParseException if the JSON is not valid
+     */
+    public static ModConfig parseConfig(String json) {
+        return GSON.fromJson(json, ModConfig.class);
+    }
+
+    /**
+     * @param config The config to serialize
+     * @return The config as written to the config file
+     */
+    public static String toJson(ModConfig config) {
+        return GSON.toJson(config);
+    }
+
+    /**
+     * Checks whether the given JSON is what this server last read or wrote.
+     *
+     * @param json The file contents
+     * @return true if the contents are unchanged since the last load or save
+     */
+    static boolean isLastSynced(String json) {
+        return json.equals(lastSyncedJson);
+    }
+
+    static void markSynced(String json) {
+        lastSyncedJson = json;
+    }
+
+    /**
+     * Loads the config from disk (creating a default file if missing) and publishes it.
+     * Falls back to defaults if the file cannot be read or parsed.
+     *
+     * @return The published snapshot
+     */
+    public static CompiledConfig loadConfig() {
         Path path = getConfigPath();
+        ModConfig loaded;
 
         if (Files.exists(path)) {
             try {
-                String json = Files.readString(path);
-                config = GSON.fromJson(json, ModConfig.class);
+                loaded = readConfig(path);
 
-                if (config == null) {
+                if (loaded == null) {
                     InvOverstackMod.LOGGER.warn("Config file was empty or invalid, using defaults");
-                    config = new ModConfig();
+                    loaded = new ModConfig();
                 } else {
-                    config.validate();
                     InvOverstackMod.LOGGER.info("Configuration loaded from {}", path);
                 }
             } catch (IOException e) {
                 InvOverstackMod.LOGGER.error("Failed to load config from {}, using defaults", path, e);
-                config = new ModConfig();
+                loaded = new ModConfig();
             } catch (Exception e) {
                 InvOverstackMod.LOGGER.error("Failed to parse config JSON, using defaults", e);
-                config = new ModConfig();
+                loaded = new ModConfig();
             }
+            publish(CompiledConfig.compile(loaded));
         } else {
             InvOverstackMod.LOGGER.info("Config file not found, creating default at {}", path);
-            config = new ModConfig();
+            publish(CompiledConfig.compile(new ModConfig()));
             saveConfig();
         }
 
@@ -61,7 +129,8 @@ public class ConfigManager {
     }
 
     public static boolean saveConfig() {
-        if (config == null) {
+        CompiledConfig current = config;
+        if (current == null) {
             InvOverstackMod.LOGGER.warn("Attempted to save null config");
             return false;
         }
@@ -69,14 +138,13 @@ public class ConfigManager {
         Path path = getConfigPath();
 
         try {
-            config.validate();
-
             Path configDir = path.getParent();
             if (!Files.exists(configDir)) {
                 Files.createDirectories(configDir);
             }
 
-            String json = GSON.toJson(config);
+            String json = toJson(current.toModConfig());
+            lastSyncedJson = json;
             Files.writeString(path, json);
 
             InvOverstackMod.LOGGER.info("Configuration saved to {}", path);
@@ -87,11 +155,23 @@ public class ConfigManager {
         }
     }
 
+    /**
+     * Re-reads the config file and publishes it. Unlike {@link #loadConfig()}, a missing or
+     * broken file keeps the currently active configuration.
+     *
+     * @return true if a new snapshot was published
+     */
     public static boolean reloadConfig() {
         InvOverstackMod.LOGGER.info("Reloading configuration...");
+        Path path = getConfigPath();
         try {
-            config = null;
-            loadConfig();
+            ModConfig loaded = readConfig(path);
+            if (loaded == null) {
+                InvOverstackMod.LOGGER.warn("Config file was empty or invalid, keeping current configuration");
+                return false;
+            }
+            publish(CompiledConfig.compile(loaded));
+            InvOverstackMod.LOGGER.info("Configuration reloaded from {}", path);
             return true;
         } catch (Exception e) {
             InvOverstackMod.LOGGER.error("Failed to reload config", e);
@@ -99,15 +179,65 @@ public class ConfigManager {
         }
     }
 
-    public static ModConfig getConfig() {
-        if (config == null) {
-            loadConfig();
+    public static CompiledConfig getConfig() {
+        CompiledConfig current = config;
+        if (current == null) {
+            current = loadConfig();
         }
-        return config;
+        return current;
     }
 
+    /**
+     * Compiles, publishes and saves a new configuration.
+     *
+     * @param newConfig The config to apply; it is copied, later changes to it have no effect
+     */
     public static void setConfig(ModConfig newConfig) {
-        config = newConfig;
+        publish(CompiledConfig.compile(newConfig));
         saveConfig();
     }
+
+    /**
+     * Makes a snapshot the active configuration.
+     *
+     * @param snapshot The snapshot to publish
+     */
+    public static void publish(CompiledConfig snapshot) {
+        if (registriesFrozen) {
+            // Build the limit table before publishing so no reader has to build it mid-tick
+            snapshot.getLimitTable();
+        }
+        config = snapshot;
+        DebugLogger.onConfigPublished(snapshot);
+        Metrics.onConfigPublished(snapshot);
+        PrometheusExporter.onConfigPublished(snapshot);
+        StackNormalizer.onConfigPublished(snapshot);
+        TransferTrace.onConfigPublished(snapshot);
+    }
+
+    /**
+     * Called once registries are frozen. Rebuilds the active limit table (it may have been
+     * built before all items were registered) and lets later snapshots build theirs eagerly.
+     */
+    public static void onRegistriesFrozen() {
+        registriesFrozen = true;
+        getConfig().rebuildLimitTable();
+    }
+
+    /**
+     * Called whenever item tags are (re)loaded, at startup and on data pack reload.
+     * Snapshots with tag rules are recompiled and republished, so the limit table and every
+     * cache keyed on the generation pick up the new tag contents.
+     */
+    public static void onTagsLoaded() {
+        CompiledConfig current = getConfig();
+        if (current.usesItemTags()) {
+            publish(CompiledConfig.compile(current.toModConfig()));
+            InvOverstackMod.LOGGER.info("Item tags reloaded - stack limit table rebuilt");
+        }
+    }
+
+    public static boolean areRegistriesFrozen() {
+        return registriesFrozen;
+    }
 }
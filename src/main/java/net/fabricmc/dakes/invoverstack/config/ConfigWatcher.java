@@ -0,0 +1,167 @@
+package net.fabricmc.dakes.invoverstack.config;
+
+import net.fabricmc.dakes.invoverstack.InvOverstackMod;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Optional background watcher that reloads invoverstack.json when it changes on disk.
+ * <p>
+ * Runs on a daemon thread. Bursts of file events are debounced, then the file is read,
+ * parsed, validated and compiled off-thread. The finished snapshot is only published from
+ * {@link #tick()}, which the server calls at the start of each tick, so editing a large
+ * config never blocks the server thread.
+ * </p>
+ * <p>
+ * Enable with {@code "watchConfigFile": true} in config/invoverstack.json.
+ * </p>
+ */
+public class ConfigWatcher {
+
+    private static final long DEBOUNCE_MS = 500;
+
+    private static final AtomicReference<CompiledConfig> pending = new AtomicReference<>();
+
+    private static Thread thread = null;
+    private static WatchService watchService = null;
+
+    /**
+     * Publishes a snapshot compiled by the watcher thread, and starts or stops the watcher
+     * to follow the active config. Call once per server tick, from the server thread.
+     */
+    public static void tick() {
+        CompiledConfig snapshot = pending.getAndSet(null);
+        if (snapshot != null) {
+            ConfigManager.publish(snapshot);
+            InvOverstackMod.LOGGER.info("Configuration reloaded from disk - Default stack size: {}, Max allowed: {}",
+                    snapshot.defaultMaxStackSize, snapshot.maxAllowedStackSize);
+        }
+
+        boolean enabled = ConfigManager.getConfig().watchConfigFile;
+        if (enabled != (thread != null)) {
+            if (enabled) {
+                start();
+            } else {
+                stop();
+            }
+        }
+    }
+
+    /**
+     * Starts watching the config file. Does nothing if the watcher is already running.
+     */
+    public static synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+
+        Path path = ConfigManager.getConfigPath();
+        try {
+            WatchService service = path.getFileSystem().newWatchService();
+            path.getParent().register(service,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            watchService = service;
+        } catch (IOException e) {
+            InvOverstackMod.LOGGER.error("Failed to watch config file {}", path, e);
+            return;
+        }
+
+        WatchService service = watchService;
+        thread = new Thread(() -> run(service, path), "InvOverstack Config Watcher");
+        thread.setDaemon(true);
+        thread.start();
+        InvOverstackMod.LOGGER.info("Watching {} for changes", path);
+    }
+
+    /**
+     * Stops the watcher and discards any snapshot that has not been published yet.
+     */
+    public static synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            InvOverstackMod.LOGGER.warn("Failed to close config watcher", e);
+        }
+        thread.interrupt();
+        thread = null;
+        watchService = null;
+        pending.set(null);
+    }
+
+    private static void run(WatchService service, Path path) {
+        Path fileName = path.getFileName();
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!isConfigChange(service.take(), fileName)) {
+                    continue;
+                }
+
+                // Debounce: keep waiting until the file has been quiet for DEBOUNCE_MS
+                WatchKey key;
+                while ((key = service.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    isConfigChange(key, fileName);
+                }
+
+                compile(path);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watcher stopped
+        }
+    }
+
+    /**
+     * Drains a watch key and resets it.
+     *
+     * @return true if any of its events concern the config file
+     */
+    private static boolean isConfigChange(WatchKey key, Path fileName) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (fileName.equals(event.context())) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+
+    private static void compile(Path path) {
+        try {
+            String json = Files.readString(path);
+            if (ConfigManager.isLastSynced(json)) {
+                return; // Our own save, or no actual change
+            }
+
+            ModConfig parsed = ConfigManager.parseConfig(json);
+            if (parsed == null) {
+                InvOverstackMod.LOGGER.warn("Config file was empty or invalid, keeping current configuration");
+                return;
+            }
+
+            CompiledConfig snapshot = CompiledConfig.compile(parsed);
+            if (ConfigManager.areRegistriesFrozen()) {
+                snapshot.getLimitTable();
+            }
+
+            ConfigManager.markSynced(json);
+            pending.set(snapshot);
+        } catch (Exception e) {
+            InvOverstackMod.LOGGER.error("Failed to reload changed config file {}, keeping current configuration", path, e);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package net.fabricmc.dakes.invoverstack.config;
+
+import it.unimi.dsi.fastutil.chars.Char2ObjectOpenHashMap;
+import net.fabricmc.dakes.invoverstack.InvOverstackMod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compiled {@code stackSizeRules}: item id globs mapped to a limit.
+ * <p>
+ * Patterns use {@code *} as a wildcard for any run of characters, e.g. {@code minecraft:*_wool}
+ * or {@code create:*}. A limit is either a number or a multiple of the item's vanilla max:
+ * {@code vanillaMax*16} (also written {@code 16*vanillaMax} or with {@code ×}).
+ * If several patterns match an item, the most specific one (most literal characters) wins.
+ * </p>
+ * <p>
+ * Rules are compiled once per config snapshot into a trie over the literal prefix of each
+ * pattern (everything before the first {@code *}). Resolving an item walks the trie along its
+ * id and only glob-matches the rules found on the way. This happens once per item when the
+ * limit table is built, never on lookups.
+ * </p>
+ */
+public final class LimitRules {
+
+    private static final LimitRules EMPTY = new LimitRules(new Node(), 0);
+
+    private static final class Rule {
+        final String pattern;
+        // Literal pieces between the wildcards; parts[0] is the trie prefix
+        final String[] parts;
+        final boolean multiplier;
+        final int value;
+        final int specificity;
+
+        Rule(String pattern, boolean multiplier, int value) {
+            this.pattern = pattern;
+            this.parts = pattern.split("\\*", -1);
+            this.multiplier = multiplier;
+            this.value = value;
+            this.specificity = pattern.length() - (parts.length - 1);
+        }
+
+        boolean matches(String id) {
+            if (parts.length == 1) {
+                return id.equals(parts[0]);
+            }
+            String last = parts[parts.length - 1];
+            if (id.length() < parts[0].length() + last.length() || !id.endsWith(last)) {
+                return false;
+            }
+            int position = parts[0].length();
+            int end = id.length() - last.length();
+            for (int i = 1; i < parts.length - 1; i++) {
+                int found = id.indexOf(parts[i], position);
+                if (found < 0 || found + parts[i].length() > end) {
+                    return false;
+                }
+                position = found + parts[i].length();
+            }
+            return true;
+        }
+
+        int limit(int vanillaMax) {
+            return multiplier ? (int) Math.min((long) vanillaMax * value, Integer.MAX_VALUE) : value;
+        }
+
+        boolean isMoreSpecificThan(Rule other) {
+            if (specificity != other.specificity) {
+                return specificity > other.specificity;
+            }
+            if (parts[0].length() != other.parts[0].length()) {
+                return parts[0].length() > other.parts[0].length();
+            }
+            return pattern.compareTo(other.pattern) < 0;
+        }
+    }
+
+    private static final class Node {
+        Char2ObjectOpenHashMap<Node> children;
+        List<Rule> rules;
+
+        Node child(char c) {
+            if (children == null) {
+                children = new Char2ObjectOpenHashMap<>();
+            }
+            return children.computeIfAbsent(c, key -> new Node());
+        }
+    }
+
+    private final Node root;
+    private final int size;
+
+    private LimitRules(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Compiles rules; invalid entries are logged and skipped.
+     *
+     * @param rules Pattern to limit expression
+     * @return The compiled rules
+     */
+    public static LimitRules compile(Map<String, String> rules) {
+        if (rules.isEmpty()) {
+            return EMPTY;
+        }
+
+        Node root = new Node();
+        int size = 0;
+        for (Map.Entry<String, String> entry : rules.entrySet()) {
+            Rule rule = parse(entry.getKey(), entry.getValue());
+            if (rule == null) {
+                continue;
+            }
+
+            Node node = root;
+            String prefix = rule.parts[0];
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.child(prefix.charAt(i));
+            }
+            if (node.rules == null) {
+                node.rules = new ArrayList<>(1);
+            }
+            node.rules.add(rule);
+            size++;
+        }
+        return new LimitRules(root, size);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Resolves the limit for an item id.
+     *
+     * @param itemId     The item id, e.g. "minecraft:white_wool"
+     * @param vanillaMax The item's vanilla max stack size
+     * @return The limit of the most specific matching rule, or -1 if none matches
+     */
+    public int resolve(String itemId, int vanillaMax) {
+        if (size == 0) {
+            return -1;
+        }
+
+        Rule best = null;
+        Node node = root;
+        for (int i = 0; ; i++) {
+            if (node.rules != null) {
+                for (Rule rule : node.rules) {
+                    if ((best == null || rule.isMoreSpecificThan(best)) && rule.matches(itemId)) {
+                        best = rule;
+                    }
+                }
+            }
+            if (i == itemId.length() || node.children == null) {
+                break;
+            }
+            node = node.children.get(itemId.charAt(i));
+            if (node == null) {
+                break;
+            }
+        }
+        return best == null ? -1 : best.limit(vanillaMax);
+    }
+
+    private static Rule parse(String pattern, String limit) {
+        if (pattern == null || pattern.isEmpty() || limit == null) {
+            return null;
+        }
+
+        String expression = limit.replace(" ", "").replace('×', '*').toLowerCase(Locale.ROOT);
+        try {
+            if (expression.equals("vanillamax")) {
+                return new Rule(pattern, true, 1);
+            }
+            if (expression.startsWith("vanillamax*")) {
+                return positive(pattern, true, Integer.parseInt(expression.substring("vanillamax*".length())), limit);
+            }
+            if (expression.endsWith("*vanillamax")) {
+                return positive(pattern, true, Integer.parseInt(expression.substring(0, expression.length() - "*vanillamax".length())), limit);
+            }
+            return positive(pattern, false, Integer.parseInt(expression), limit);
+        } catch (NumberFormatException e) {
+            InvOverstackMod.LOGGER.warn("[LimitRules] Ignoring rule '{}': cannot parse limit '{}'", pattern, limit);
+            return null;
+        }
+    }
+
+    private static Rule positive(String pattern, boolean multiplier, int value, String limit) {
+        if (value < 1) {
+            InvOverstackMod.LOGGER.warn("[LimitRules] Ignoring rule '{}': limit '{}' must be positive", pattern, limit);
+            return null;
+        }
+        return new Rule(pattern, multiplier, value);
+    }
+}
@@ -10,11 +10,26 @@ public class ModConfig {
     public int defaultMaxStackSize = 512;
     public int maxAllowedStackSize = 4096;
     public Map<String, Integer> perItemOverrides = new HashMap<>();
+    public Map<String, String> stackSizeRules = new HashMap<>();  // Glob -> limit, e.g. "minecraft:*_wool": "vanillaMax*16"
+    public Map<String, Integer> componentRules = new HashMap<>();  // e.g. "minecraft:potion[minecraft:custom_data]": 1
     public Set<String> enabledItemCategories = new HashSet<>();
     public Set<String> itemBlacklist = new HashSet<>();
     public boolean autoNormalize = false;
     public boolean debugMode = false;
     public boolean disableEasyShulkerBoxes = true;  // Disabled by default to prevent item voiding
+    public boolean watchConfigFile = false;  // Reload automatically when invoverstack.json changes on disk
+    public boolean verifySlotIndex = false;  // Cross-check the player inventory slot index against a full scan (testing only)
+    public boolean metricsEnabled = false;  // Collect hook counters for /invoverstack stats
+    public String metricsExportFile = "";  // Prometheus text file to write periodically, empty = disabled
+    public int metricsExportIntervalSeconds = 15;
+    public boolean bulkHopperTransfer = false;  // Move several items per hopper transfer (container limits stay vanilla)
+    public int bulkHopperItemsPerTransfer = 8;
+    public int bulkHopperBudgetPerSecond = 0;  // Max items one hopper moves in bulk per second, 0 = unlimited
+    public int itemEntityMaxCount = 0;  // Max items one dropped item entity may hold, 0 = vanilla max
+    public boolean compactDrops = false;  // Group death drops into as few item entities as possible
+    public int dropSpawnBudgetPerTick = 0;  // Max compacted death-drop entities spawned per tick, 0 = all at once
+    public boolean countDeltaSync = false;  // Send count-only slot updates to clients running the mod
+    public int normalizeBudgetMicros = 200;  // Time autoNormalize may spend per tick
 
     public ModConfig() {
         initializeDefaultBlacklist();
@@ -46,16 +61,37 @@ public class ModConfig {
         itemBlacklist.add("minecraft:enchanted_book");
     }
 
-    public int getStackSizeForItem(String itemId) {
-        if (itemBlacklist.contains(itemId)) {
-            return -1;
-        }
-
-        if (perItemOverrides.containsKey(itemId)) {
-            return Math.min(perItemOverrides.get(itemId), maxAllowedStackSize);
-        }
-
-        return Math.min(defaultMaxStackSize, maxAllowedStackSize);
+    /**
+     * Creates a deep copy of this config.
+     *
+     * @return A new ModConfig with the same values
+     */
+    public ModConfig copy() {
+        ModConfig copy = new ModConfig();
+        copy.defaultMaxStackSize = defaultMaxStackSize;
+        copy.maxAllowedStackSize = maxAllowedStackSize;
+        copy.perItemOverrides = new HashMap<>(perItemOverrides != null ? perItemOverrides : Map.of());
+        copy.stackSizeRules = new HashMap<>(stackSizeRules != null ? stackSizeRules : Map.of());
+        copy.componentRules = new HashMap<>(componentRules != null ? componentRules : Map.of());
+        copy.enabledItemCategories = new HashSet<>(enabledItemCategories != null ? enabledItemCategories : Set.of());
+        copy.itemBlacklist = new HashSet<>(itemBlacklist != null ? itemBlacklist : Set.of());
+        copy.autoNormalize = autoNormalize;
+        copy.debugMode = debugMode;
+        copy.disableEasyShulkerBoxes = disableEasyShulkerBoxes;
+        copy.watchConfigFile = watchConfigFile;
+        copy.verifySlotIndex = verifySlotIndex;
+        copy.metricsEnabled = metricsEnabled;
+        copy.metricsExportFile = metricsExportFile;
+        copy.metricsExportIntervalSeconds = metricsExportIntervalSeconds;
+        copy.bulkHopperTransfer = bulkHopperTransfer;
+        copy.bulkHopperItemsPerTransfer = bulkHopperItemsPerTransfer;
+        copy.bulkHopperBudgetPerSecond = bulkHopperBudgetPerSecond;
+        copy.itemEntityMaxCount = itemEntityMaxCount;
+        copy.compactDrops = compactDrops;
+        copy.dropSpawnBudgetPerTick = dropSpawnBudgetPerTick;
+        copy.countDeltaSync = countDeltaSync;
+        copy.normalizeBudgetMicros = normalizeBudgetMicros;
+        return copy;
     }
 
     public void validate() {
@@ -72,10 +108,47 @@ public class ModConfig {
             maxAllowedStackSize = 32767;
         }
 
+        if (metricsExportFile == null) {
+            metricsExportFile = "";
+        }
+        if (metricsExportIntervalSeconds < 1) {
+            metricsExportIntervalSeconds = 15;
+        }
+        // Hopper transfers stay within one container stack
+        if (bulkHopperItemsPerTransfer < 1) {
+            bulkHopperItemsPerTransfer = 1;
+        }
+        if (bulkHopperItemsPerTransfer > 64) {
+            bulkHopperItemsPerTransfer = 64;
+        }
+        if (bulkHopperBudgetPerSecond < 0) {
+            bulkHopperBudgetPerSecond = 0;
+        }
+        if (itemEntityMaxCount < 0) {
+            itemEntityMaxCount = 0;
+        }
+        if (itemEntityMaxCount > maxAllowedStackSize) {
+            itemEntityMaxCount = maxAllowedStackSize;
+        }
+        if (dropSpawnBudgetPerTick < 0) {
+            dropSpawnBudgetPerTick = 0;
+        }
+        if (normalizeBudgetMicros < 1) {
+            normalizeBudgetMicros = 200;
+        }
+
+        stackSizeRules.entrySet().removeIf(rule -> rule.getKey() == null || rule.getValue() == null);
+
         perItemOverrides.replaceAll((key, value) -> {
             if (value < 1) return 64;
             if (value > maxAllowedStackSize) return maxAllowedStackSize;
             return value;
         });
+        componentRules.entrySet().removeIf(rule -> rule.getKey() == null || rule.getValue() == null);
+        componentRules.replaceAll((key, value) -> {
+            if (value < 1) return 64;
+            if (value > maxAllowedStackSize) return maxAllowedStackSize;
+            return value;
+        });
     }
 }
@@ -0,0 +1,101 @@
+package net.fabricmc.dakes.invoverstack.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two nanosecond buckets.
+ * <p>
+ * Bucket {@code n} counts samples in {@code [2^(n-1), 2^n)} ns (bucket 0 holds 0 ns).
+ * Recording is two striped adds, so it is cheap enough for sampled hot-path timings.
+ * </p>
+ */
+public final class LatencyHistogram {
+
+    public static final int BUCKETS = 40;
+
+    private final String name;
+    private final String help;
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram(String name, String help) {
+        this.name = name;
+        this.help = help;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKETS - 1);
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    /**
+     * @return Per-bucket sample counts (not cumulative)
+     */
+    public long[] snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    public long sumNanos() {
+        return sumNanos.sum();
+    }
+
+    /**
+     * Upper bound (exclusive) of a bucket in nanoseconds.
+     */
+    public static long upperBoundNanos(int bucket) {
+        return 1L << bucket;
+    }
+
+    /**
+     * Estimates a percentile as the upper bound of the bucket containing it.
+     *
+     * @param counts     A snapshot from {@link #snapshot()}
+     * @param percentile Between 0 and 1
+     * @return The estimate in nanoseconds, or 0 if there are no samples
+     */
+    public static long percentileNanos(long[] counts, double percentile) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return upperBoundNanos(i);
+            }
+        }
+        return upperBoundNanos(counts.length - 1);
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        sumNanos.reset();
+    }
+}
@@ -0,0 +1,95 @@
+package net.fabricmc.dakes.invoverstack.metrics;
+
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime counters for InvOverstack's hooks.
+ * <p>
+ * Counters are striped {@link LongAdder}s, so concurrent updates never contend on one cache
+ * line. Latencies are sampled (one call in {@link #SAMPLE_RATE}) into {@link LatencyHistogram}s.
+ * Everything is gated on a cached volatile flag ({@code metricsEnabled} in the config), so
+ * with metrics off a hook pays a single volatile read.
+ * </p>
+ * <p>
+ * Shown by {@code /invoverstack stats} and optionally exported by {@link PrometheusExporter}.
+ * </p>
+ */
+public final class Metrics {
+
+    public static final int SAMPLE_RATE = 64;
+
+    public static final LongAdder SLOT_LIMIT_CALLS = new LongAdder();
+    public static final LongAdder LIMIT_TABLE_HITS = new LongAdder();
+    public static final LongAdder LIMIT_TABLE_MISSES = new LongAdder();
+    public static final LongAdder HOPPER_OVERSIZED_TRANSFERS = new LongAdder();
+    public static final LongAdder HOPPER_FALLTHROUGHS = new LongAdder();
+    public static final LongAdder ITEM_ENTITY_PARTIAL_MERGES = new LongAdder();
+
+    public static final LatencyHistogram SLOT_LIMIT_LATENCY = new LatencyHistogram(
+            "invoverstack_slot_limit_latency_seconds", "Sampled latency of Slot.getMaxItemCount hooks");
+
+    public static final List<Counter> COUNTERS = List.of(
+            new Counter("invoverstack_slot_limit_calls_total", "Slot.getMaxItemCount hook calls", SLOT_LIMIT_CALLS),
+            new Counter("invoverstack_limit_table_hits_total", "Stack limit lookups served by the limit table", LIMIT_TABLE_HITS),
+            new Counter("invoverstack_limit_table_misses_total", "Stack limit lookups that fell back to config resolution", LIMIT_TABLE_MISSES),
+            new Counter("invoverstack_hopper_oversized_transfers_total", "Hopper transfers that moved more than one item", HOPPER_OVERSIZED_TRANSFERS),
+            new Counter("invoverstack_hopper_fallthroughs_total", "Hopper transfers left to single-item vanilla/Lithium logic", HOPPER_FALLTHROUGHS),
+            new Counter("invoverstack_item_entity_partial_merges_total", "Item entity merges that left a remainder in the source entity", ITEM_ENTITY_PARTIAL_MERGES)
+    );
+
+    public static final List<LatencyHistogram> HISTOGRAMS = List.of(SLOT_LIMIT_LATENCY);
+
+    private static volatile boolean enabled = false;
+    // Racy on purpose: only used to pick roughly one call in SAMPLE_RATE
+    private static int sampleTicker = 0;
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Updates the cached enabled flag. Called whenever a config snapshot is published.
+     */
+    public static void onConfigPublished(CompiledConfig config) {
+        enabled = config.metricsEnabled;
+    }
+
+    /**
+     * Starts a sampled timing.
+     *
+     * @return A start timestamp, or 0 if this call is not sampled
+     */
+    public static long startSample() {
+        if ((++sampleTicker & (SAMPLE_RATE - 1)) != 0) {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Finishes a timing started with {@link #startSample()}.
+     */
+    public static void endSample(LatencyHistogram histogram, long start) {
+        if (start != 0) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    public static void reset() {
+        for (Counter counter : COUNTERS) {
+            counter.adder().reset();
+        }
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    public record Counter(String name, String help, LongAdder adder) {
+    }
+}
@@ -0,0 +1,115 @@
+package net.fabricmc.dakes.invoverstack.metrics;
+
+import net.fabricmc.dakes.invoverstack.InvOverstackMod;
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes {@link Metrics} in the Prometheus text exposition format, for the
+ * node exporter textfile collector.
+ * <p>
+ * Runs on its own daemon thread and replaces the file atomically, so the exporter never
+ * reads a partial file. Enabled by setting {@code metricsExportFile} in the config.
+ * </p>
+ */
+public final class PrometheusExporter {
+
+    private static ScheduledExecutorService executor = null;
+    // Whether a server is running; the executor itself only exists while exporting is enabled
+    private static boolean running = false;
+
+    private PrometheusExporter() {
+    }
+
+    /**
+     * Starts exporting if the config asks for it. Restarts with the new settings if already running.
+     */
+    public static synchronized void start(CompiledConfig config) {
+        stop();
+        running = true;
+
+        if (!config.metricsEnabled || config.metricsExportFile.isEmpty()) {
+            return;
+        }
+
+        Path file = Path.of(config.metricsExportFile);
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "InvOverstack Metrics Exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> export(file),
+                config.metricsExportIntervalSeconds, config.metricsExportIntervalSeconds, TimeUnit.SECONDS);
+        InvOverstackMod.LOGGER.info("Exporting metrics to {} every {}s", file, config.metricsExportIntervalSeconds);
+    }
+
+    /**
+     * Applies new export settings if the exporter is running (i.e. a server is up).
+     */
+    public static synchronized void onConfigPublished(CompiledConfig config) {
+        if (running) {
+            start(config);
+        }
+    }
+
+    public static synchronized void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private static void export(Path file) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = parent.resolve(file.getFileName() + ".tmp");
+            Files.writeString(temp, render());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            InvOverstackMod.LOGGER.warn("Failed to export metrics to {}", file, e);
+        }
+    }
+
+    /**
+     * @return All metrics in Prometheus text format
+     */
+    public static String render() {
+        StringBuilder out = new StringBuilder(2048);
+
+        for (Metrics.Counter counter : Metrics.COUNTERS) {
+            out.append("# HELP ").append(counter.name()).append(' ').append(counter.help()).append('\n');
+            out.append("# TYPE ").append(counter.name()).append(" counter\n");
+            out.append(counter.name()).append(' ').append(counter.adder().sum()).append('\n');
+        }
+
+        for (LatencyHistogram histogram : Metrics.HISTOGRAMS) {
+            String name = histogram.getName();
+            long[] counts = histogram.snapshot();
+
+            out.append("# HELP ").append(name).append(' ').append(histogram.getHelp()).append('\n');
+            out.append("# TYPE ").append(name).append(" histogram\n");
+
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                out.append(name).append("_bucket{le=\"")
+                        .append(LatencyHistogram.upperBoundNanos(i) / 1e9)
+                        .append("\"} ").append(cumulative).append('\n');
+            }
+            out.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+            out.append(name).append("_sum ").append(histogram.sumNanos() / 1e9).append('\n');
+            out.append(name).append("_count ").append(cumulative).append('\n');
+        }
+
+        return out.toString();
+    }
+}
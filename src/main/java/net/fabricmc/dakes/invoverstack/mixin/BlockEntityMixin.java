@@ -0,0 +1,23 @@
+package net.fabricmc.dakes.invoverstack.mixin;
+
+import net.fabricmc.dakes.invoverstack.util.ComparatorFillHolder;
+import net.minecraft.block.entity.BlockEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Reports {@code markDirty} to the comparator fill of containers, which uses it as a fallback
+ * to catch writes that bypassed the slot methods.
+ */
+@Mixin(BlockEntity.class)
+public abstract class BlockEntityMixin {
+
+    @Inject(method = "markDirty()V", at = @At("HEAD"))
+    private void invoverstack$onMarkDirty(CallbackInfo ci) {
+        if ((Object) this instanceof ComparatorFillHolder holder) {
+            holder.invoverstack$getContainerFill().onMarkDirty();
+        }
+    }
+}
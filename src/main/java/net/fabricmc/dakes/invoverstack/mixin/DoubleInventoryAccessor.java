@@ -0,0 +1,16 @@
+package net.fabricmc.dakes.invoverstack.mixin;
+
+import net.minecraft.inventory.DoubleInventory;
+import net.minecraft.inventory.Inventory;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(DoubleInventory.class)
+public interface DoubleInventoryAccessor {
+
+    @Accessor("first")
+    Inventory invoverstack$getFirst();
+
+    @Accessor("second")
+    Inventory invoverstack$getSecond();
+}
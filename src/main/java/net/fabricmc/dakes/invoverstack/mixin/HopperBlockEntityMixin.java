@@ -0,0 +1,35 @@
+package net.fabricmc.dakes.invoverstack.mixin;
+
+import net.fabricmc.dakes.invoverstack.util.ComparatorFillHolder;
+import net.minecraft.block.entity.HopperBlockEntity;
+import net.minecraft.item.ItemStack;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Hoppers override setStack and removeStack without calling super; reports their slot
+ * writes to the comparator fill like {@code LootableContainerBlockEntityMixin}.
+ */
+@Mixin(HopperBlockEntity.class)
+public abstract class HopperBlockEntityMixin {
+
+    @Inject(method = "setStack(ILnet/minecraft/item/ItemStack;)V", at = @At("TAIL"))
+    private void invoverstack$afterSetStack(int slot, ItemStack stack, CallbackInfo ci) {
+        invoverstack$onSlotChanged(slot);
+    }
+
+    @Inject(method = "removeStack(II)Lnet/minecraft/item/ItemStack;", at = @At("TAIL"))
+    private void invoverstack$afterRemoveStack(int slot, int amount, CallbackInfoReturnable<ItemStack> cir) {
+        invoverstack$onSlotChanged(slot);
+    }
+
+    @Unique
+    private void invoverstack$onSlotChanged(int slot) {
+        ComparatorFillHolder holder = (ComparatorFillHolder) (Object) this;
+        holder.invoverstack$getContainerFill().onSlotChanged(holder.invoverstack$getHeldStacks(), slot);
+    }
+}
@@ -0,0 +1,214 @@
+package net.fabricmc.dakes.invoverstack.mixin;
+
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.fabricmc.dakes.invoverstack.util.BulkHopper;
+import net.fabricmc.dakes.invoverstack.util.HopperBudget;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.block.entity.Hopper;
+import net.minecraft.block.entity.HopperBlockEntity;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.ModifyVariable;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Opt-in bulk hopper mode (bulkHopperTransfer).
+ *
+ * Vanilla hoppers take exactly one item out of a slot per push or pull. In bulk mode a hopper
+ * offers up to bulkHopperItemsPerTransfer items instead; HopperTransferMixin then places as
+ * many as fit under the target's limits (vanilla for containers), and whatever did not fit is
+ * put back into the source slot. Vanilla's own loop restores the full original count on a
+ * partial transfer, so both methods are replaced rather than just changing the amount.
+ *
+ * bulkHopperBudgetPerSecond caps how many items one hopper block moves per second; once the
+ * budget is spent the hopper falls back to one item per transfer instead of stalling.
+ *
+ * Lithium replaces insert and extract with its own HEAD injections, which cancel just like
+ * these do; whichever runs first would silently disable the other. With Lithium loaded these
+ * injections therefore step aside, and bulk mode is applied inside Lithium's transfer by
+ * HopperHelperMixin instead. Both paths charge the same budget: the hopper running
+ * insertAndExtract is published as the active one, see {@link HopperBudget}.
+ */
+@Mixin(value = HopperBlockEntity.class, priority = 500)
+public abstract class HopperBulkTransferMixin implements BulkHopper {
+
+    @Unique
+    private static final boolean LITHIUM = FabricLoader.getInstance().isModLoaded("lithium");
+
+    @Shadow
+    private Direction facing;
+
+    // Game second the budget applies to, and items moved in it
+    @Unique
+    private long invoverstack$budgetSecond = -1;
+    @Unique
+    private int invoverstack$budgetUsed = 0;
+
+    @Shadow
+    @Nullable
+    private static Inventory getOutputInventory(World world, BlockPos pos, HopperBlockEntity blockEntity) {
+        throw new AssertionError();
+    }
+
+    @Shadow
+    private static boolean isInventoryFull(Inventory inventory, Direction direction) {
+        throw new AssertionError();
+    }
+
+    @Shadow
+    private static boolean canExtract(Inventory hopperInventory, Inventory fromInventory, ItemStack stack, int slot, Direction facing) {
+        throw new AssertionError();
+    }
+
+    /**
+     * Publishes the hopper before it moves anything. Modifying the argument instead of injecting
+     * a callback allocates nothing per hopper tick.
+     */
+    @ModifyVariable(method = "insertAndExtract(Lnet/minecraft/world/World;Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/BlockState;Lnet/minecraft/block/entity/HopperBlockEntity;Ljava/util/function/BooleanSupplier;)Z",
+            at = @At("HEAD"), argsOnly = true)
+    private static HopperBlockEntity invoverstack$enterHopper(HopperBlockEntity blockEntity) {
+        HopperBudget.setActive((BulkHopper) (Object) blockEntity);
+        return blockEntity;
+    }
+
+    @ModifyVariable(method = "insertAndExtract(Lnet/minecraft/world/World;Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/BlockState;Lnet/minecraft/block/entity/HopperBlockEntity;Ljava/util/function/BooleanSupplier;)Z",
+            at = @At("RETURN"), argsOnly = true)
+    private static HopperBlockEntity invoverstack$leaveHopper(HopperBlockEntity blockEntity) {
+        HopperBudget.setActive(null);
+        return blockEntity;
+    }
+
+    @Inject(method = "insert(Lnet/minecraft/world/World;Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/entity/HopperBlockEntity;)Z",
+            at = @At("HEAD"), cancellable = true)
+    private static void invoverstack$bulkInsert(World world, BlockPos pos, HopperBlockEntity blockEntity,
+                                                CallbackInfoReturnable<Boolean> cir) {
+        CompiledConfig config = ConfigManager.getConfig();
+        if (!config.bulkHopperTransfer || LITHIUM) {
+            return;
+        }
+
+        HopperBulkTransferMixin self = (HopperBulkTransferMixin) (Object) blockEntity;
+        Inventory output = getOutputInventory(world, pos, blockEntity);
+        if (output == null) {
+            cir.setReturnValue(false);
+            return;
+        }
+
+        Direction side = self.facing.getOpposite();
+        if (isInventoryFull(output, side)) {
+            cir.setReturnValue(false);
+            return;
+        }
+
+        for (int slot = 0; slot < blockEntity.size(); slot++) {
+            ItemStack stack = blockEntity.getStack(slot);
+            if (stack.isEmpty()) {
+                continue;
+            }
+
+            int amount = self.invoverstack$allowance(config, stack.getCount());
+            int moved = invoverstack$move(blockEntity, output, slot, stack, amount, side);
+            if (moved > 0) {
+                self.invoverstack$spend(moved);
+                output.markDirty();
+                cir.setReturnValue(true);
+                return;
+            }
+        }
+
+        cir.setReturnValue(false);
+    }
+
+    @Inject(method = "extract(Lnet/minecraft/block/entity/Hopper;Lnet/minecraft/inventory/Inventory;ILnet/minecraft/util/math/Direction;)Z",
+            at = @At("HEAD"), cancellable = true)
+    private static void invoverstack$bulkExtract(Hopper hopper, Inventory inventory, int slot, Direction side,
+                                                 CallbackInfoReturnable<Boolean> cir) {
+        CompiledConfig config = ConfigManager.getConfig();
+        if (!config.bulkHopperTransfer || LITHIUM) {
+            return;
+        }
+
+        ItemStack stack = inventory.getStack(slot);
+        if (stack.isEmpty() || !canExtract(hopper, inventory, stack, slot, side)) {
+            cir.setReturnValue(false);
+            return;
+        }
+
+        // Hopper minecarts have no budget state, they only get the per-transfer cap
+        BulkHopper self = hopper instanceof HopperBlockEntity blockEntity ? (BulkHopper) (Object) blockEntity : null;
+        int amount = HopperBudget.allowance(self, config, stack.getCount());
+
+        int moved = invoverstack$move(inventory, hopper, slot, stack, amount, null);
+        if (moved > 0) {
+            if (self != null) {
+                self.invoverstack$spend(moved);
+            }
+            inventory.markDirty();
+            cir.setReturnValue(true);
+            return;
+        }
+
+        cir.setReturnValue(false);
+    }
+
+    /**
+     * Offers up to amount items from a slot to the target and puts back what did not fit.
+     * <p>
+     * Like vanilla {@code extract}, the slot is restored from a copy: single-item inventories
+     * (chiseled bookshelf, jukebox) hand out the slot's own stack from {@code removeStack}, and
+     * that object may now sit in the target.
+     * </p>
+     *
+     * @return Number of items moved
+     */
+    @Unique
+    private static int invoverstack$move(Inventory from, Inventory to, int slot, ItemStack stack, int amount,
+                                         @Nullable Direction side) {
+        ItemStack snapshot = stack.copy();
+        ItemStack offered = from.removeStack(slot, amount);
+        int offeredCount = offered.getCount();
+        ItemStack remainder = HopperBlockEntity.transfer(from, to, offered, side);
+        if (remainder.isEmpty()) {
+            return offeredCount;
+        }
+
+        int moved = offeredCount - remainder.getCount();
+        snapshot.decrement(moved);
+        from.setStack(slot, snapshot);
+        return moved;
+    }
+
+    @Override
+    public int invoverstack$allowance(CompiledConfig config, int available) {
+        int amount = Math.min(available, config.bulkHopperItemsPerTransfer);
+        if (config.bulkHopperBudgetPerSecond <= 0) {
+            return amount;
+        }
+
+        World world = ((HopperBlockEntity) (Object) this).getWorld();
+        long second = world != null ? world.getTime() / 20 : 0;
+        if (second != invoverstack$budgetSecond) {
+            invoverstack$budgetSecond = second;
+            invoverstack$budgetUsed = 0;
+        }
+
+        // Out of budget: one item, like vanilla
+        int left = config.bulkHopperBudgetPerSecond - invoverstack$budgetUsed;
+        return Math.max(1, Math.min(amount, left));
+    }
+
+    @Override
+    public void invoverstack$spend(int moved) {
+        invoverstack$budgetUsed += moved;
+    }
+}
@@ -1,11 +1,20 @@
 package net.fabricmc.dakes.invoverstack.mixin;
 
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.fabricmc.dakes.invoverstack.metrics.Metrics;
+import net.fabricmc.dakes.invoverstack.trace.TraceFormat;
+import net.fabricmc.dakes.invoverstack.trace.TransferTrace;
+import net.fabricmc.dakes.invoverstack.util.BulkHopper;
 import net.fabricmc.dakes.invoverstack.util.DebugLogger;
+import net.fabricmc.dakes.invoverstack.util.HopperBudget;
 import net.fabricmc.dakes.invoverstack.util.StackContext;
+import net.fabricmc.dakes.invoverstack.util.TransferMath;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.item.ItemStack;
 import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
@@ -16,6 +25,14 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
  * Lithium's tryMoveSingleItem() always transfers 1 item by default.
  * This mixin allows oversized transfers to player inventories (512 items)
  * while keeping containers at vanilla 64 limits.
+ * With bulkHopperTransfer enabled, transfers into containers also move up to
+ * bulkHopperItemsPerTransfer items, still capped at the vanilla limit, both when merging into
+ * a stack and when filling an empty slot. Lithium's transfer does not see which hopper is
+ * moving; the budget is charged to the hopper published by HopperBulkTransferMixin (see
+ * {@link HopperBudget}), so it holds on both paths.
+ *
+ * Lithium's Fabric jar refers to Minecraft in intermediary names, which Loom's runtime and the
+ * refmap translate, so the invoke targets are remapped while the Lithium method name is not.
  *
  * Priority 1000 ensures this runs BEFORE Lithium (950) to control the actual transfer logic.
  * If Lithium isn't loaded, this mixin won't be instantiated.
@@ -29,15 +46,15 @@ public class HopperHelperMixin {
 
     /**
      * Hooks into Lithium's single-item transfer and expands it for oversized stacks.
-     * We intercept right before the grow(1) call and allow up to context-aware maximum.
-     * Note: Lithium uses Mojang mappings, so we target grow() not increment()
+     * We intercept right before the increment(1) call and allow up to context-aware maximum.
      */
     @Inject(
         method = "tryMoveSingleItem",
         at = @At(
             value = "INVOKE",
-            target = "Lnet/minecraft/world/item/ItemStack;grow(I)V",
-            shift = At.Shift.BEFORE
+            target = "Lnet/minecraft/item/ItemStack;increment(I)V",
+            shift = At.Shift.BEFORE,
+            remap = true
         ),
         cancellable = true,
         require = 0
@@ -60,48 +77,140 @@ public class HopperHelperMixin {
             // This should not happen but be defensive
             if (toStack.isEmpty() || !ItemStack.areItemsAndComponentsEqual(toStack, transferStack)) {
                 DebugLogger.debug("[HopperHelperMixin] Stack empty or doesn't match - falling through");
-                return; // Fall through to Lithium's grow(1)
+                return; // Fall through to Lithium's increment(1)
+            }
+
+            int transferAmount = invoverstack$transferAmount(to, toStack, transferStack, targetSlot);
+            if (transferAmount > 0) {
+                // Perform the transfer
+                toStack.increment(transferAmount);
+                transferStack.decrement(transferAmount);
+                to.markDirty();
+
+                cir.setReturnValue(true);
+            }
+            // Otherwise return early without cancelling to use Lithium's increment(1)
+        } catch (Exception e) {
+            DebugLogger.debug("HopperHelperMixin error (falling through): %s", e.getMessage());
+            // Silently fall through to Lithium's logic on any error
+        }
+    }
+
+    /**
+     * Bulk mode for an empty target slot, where Lithium splits a single item off the offered
+     * stack. Transfers into empty player slots keep Lithium's behavior.
+     */
+    @Inject(
+        method = "tryMoveSingleItem",
+        at = @At(
+            value = "INVOKE",
+            target = "Lnet/minecraft/item/ItemStack;split(I)Lnet/minecraft/item/ItemStack;",
+            shift = At.Shift.BEFORE,
+            remap = true
+        ),
+        cancellable = true,
+        require = 0
+    )
+    private static void expandTransferIntoEmptySlot(
+        Inventory to,
+        @Nullable Object toSidedObj,
+        ItemStack transferStack,
+        ItemStack transferChecker,
+        int targetSlot,
+        @Nullable Object fromDirectionObj,
+        CallbackInfoReturnable<Boolean> cir
+    ) {
+        try {
+            if (!ConfigManager.getConfig().bulkHopperTransfer || StackContext.isPlayerInventory(to)
+                    || !to.getStack(targetSlot).isEmpty() || transferStack.isEmpty()) {
+                return; // Fall through to Lithium's split(1)
             }
 
-            // Get context-aware max stack size
-            int maxStack = StackContext.getEffectiveMaxStackSize(toStack, to);
-            int currentCount = toStack.getCount();
-            int spaceRemaining = maxStack - currentCount;
+            int transferAmount = invoverstack$transferAmount(to, ItemStack.EMPTY, transferStack, targetSlot);
+            if (transferAmount > 0) {
+                to.setStack(targetSlot, transferStack.split(transferAmount));
+                to.markDirty();
 
-            boolean isPlayerInv = StackContext.isPlayerInventory(to);
+                cir.setReturnValue(true);
+            }
+        } catch (Exception e) {
+            DebugLogger.debug("HopperHelperMixin error (falling through): %s", e.getMessage());
+        }
+    }
+
+    /**
+     * How many items to move into the target slot instead of Lithium's single one, charged to
+     * the moving hopper's budget in bulk mode.
+     *
+     * @param toStack The stack in the target slot, empty if the slot is empty
+     * @return The amount to move, or 0 to let Lithium move one item
+     */
+    @Unique
+    private static int invoverstack$transferAmount(Inventory to, ItemStack toStack, ItemStack transferStack, int targetSlot) {
+        // Get context-aware max stack size
+        boolean isPlayerInv = StackContext.isPlayerInventory(to);
+        int maxStack = StackContext.getEffectiveMaxStackSize(toStack.isEmpty() ? transferStack : toStack, to);
+        if (!isPlayerInv) {
+            // Lithium checks the inventory's own cap too (1 for chiseled bookshelves, crafters)
+            maxStack = Math.min(maxStack, to.getMaxCount(transferStack));
+        }
+        int currentCount = toStack.getCount();
+        int spaceRemaining = maxStack - currentCount;
 
+        if (DebugLogger.isEnabled()) {
             DebugLogger.debug("[HopperHelperMixin] item=%s, inv=%s, isPlayer=%b, max=%d, current=%d, space=%d",
-                toStack.getItem().toString(),
+                transferStack.getItem().toString(),
                 to.getClass().getSimpleName(),
                 isPlayerInv,
                 maxStack,
                 currentCount,
                 spaceRemaining);
+        }
 
-            // If we can fit more than 1 item and target is player inventory, do oversized transfer
-            if (spaceRemaining > 1 && isPlayerInv) {
-                int transferAmount = Math.min(transferStack.getCount(), spaceRemaining);
+        // Bulk mode also moves several items into containers, capped per transfer
+        CompiledConfig config = ConfigManager.getConfig();
+        boolean bulk = !isPlayerInv && config.bulkHopperTransfer;
 
-                DebugLogger.debug("[HopperHelperMixin] OVERSIZED transfer to player inv: %d items (vs Lithium's 1)",
-                    transferAmount);
+        // If we can fit more than 1 item and target is player inventory (or bulk mode), do oversized transfer
+        if (spaceRemaining > 1 && (isPlayerInv || bulk)) {
+            BulkHopper hopper = bulk ? HopperBudget.active() : null;
+            int offered = bulk
+                ? HopperBudget.allowance(hopper, config, transferStack.getCount())
+                : transferStack.getCount();
+            int transferAmount = TransferMath.transferAmount(offered, currentCount, maxStack);
 
-                // Perform the transfer
-                toStack.increment(transferAmount);
-                transferStack.decrement(transferAmount);
-                to.markDirty();
+            // An exhausted budget offers a single item: leave that to Lithium
+            if (transferAmount > 1) {
+                if (hopper != null) {
+                    hopper.invoverstack$spend(transferAmount);
+                }
 
-                cir.setReturnValue(true);
-                return;
-            }
+                if (TransferTrace.isRecording()) {
+                    TransferTrace.record(TraceFormat.SOURCE_HOPPER_LITHIUM, TransferTrace.kindOf(to), transferStack.getItem(), targetSlot,
+                        currentCount, currentCount + transferAmount, transferAmount, maxStack, offered);
+                }
 
-            // Container inventory or only 1 space left: fall through to Lithium's grow(1)
-            DebugLogger.debug("[HopperHelperMixin] Using Lithium's 1-item transfer (isContainer=%b, space=%d)",
-                !isPlayerInv, spaceRemaining);
+                DebugLogger.debug("[HopperHelperMixin] OVERSIZED transfer (bulk=%b): %d items (vs Lithium's 1)",
+                    bulk, transferAmount);
 
-            // Return early without cancelling to use Lithium's grow(1)
-        } catch (Exception e) {
-            DebugLogger.debug("HopperHelperMixin error (falling through): %s", e.getMessage());
-            // Silently fall through to Lithium's logic on any error
+                if (Metrics.isEnabled()) {
+                    Metrics.HOPPER_OVERSIZED_TRANSFERS.increment();
+                }
+                return transferAmount;
+            }
+        }
+
+        // Container inventory or only 1 space left: fall through to Lithium's single item
+        if (Metrics.isEnabled()) {
+            Metrics.HOPPER_FALLTHROUGHS.increment();
+        }
+        if (TransferTrace.isRecording()) {
+            // Lithium moves exactly one of the offered items, whatever our limit says
+            TransferTrace.record(TraceFormat.SOURCE_HOPPER_LITHIUM_SINGLE, TransferTrace.kindOf(to), transferStack.getItem(), targetSlot,
+                currentCount, currentCount + 1, 1, maxStack, transferStack.getCount());
         }
+        DebugLogger.debug("[HopperHelperMixin] Using Lithium's 1-item transfer (isContainer=%b, space=%d)",
+            !isPlayerInv, spaceRemaining);
+        return 0;
     }
 }
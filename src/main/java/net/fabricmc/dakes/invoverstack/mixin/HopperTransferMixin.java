@@ -1,13 +1,17 @@
 package net.fabricmc.dakes.invoverstack.mixin;
 
-import net.fabricmc.dakes.invoverstack.InvOverstackMod;
+import net.fabricmc.dakes.invoverstack.metrics.Metrics;
+import net.fabricmc.dakes.invoverstack.trace.TraceFormat;
+import net.fabricmc.dakes.invoverstack.trace.TransferTrace;
 import net.fabricmc.dakes.invoverstack.util.DebugLogger;
 import net.fabricmc.dakes.invoverstack.util.StackContext;
+import net.fabricmc.dakes.invoverstack.util.TransferMath;
 import net.minecraft.block.entity.HopperBlockEntity;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.Direction;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
@@ -32,12 +36,28 @@ public abstract class HopperTransferMixin {
 
         // Check if we can insert - if not, return original stack unchanged
         if (!to.isValid(slot, stack)) {
+            invoverstack$traceRejected(to, stack, existingStack, slot);
             cir.setReturnValue(stack);
             return;
         }
 
         if (existingStack.isEmpty()) {
-            // Empty slot - just set the stack
+            if (TransferTrace.isRecording()) {
+                int count = stack.getCount();
+                int limit = StackContext.getEffectiveMaxStackSize(stack, to);
+                int amount = TransferMath.transferAmount(count, 0, limit);
+                TransferTrace.record(TraceFormat.SOURCE_HOPPER_VANILLA, TransferTrace.kindOf(to), stack.getItem(),
+                        slot, 0, amount, amount, limit, count);
+            }
+
+            // Empty slot - set the stack, split at the slot limit (bulk transfers may offer more)
+            int maxStack = StackContext.getEffectiveMaxStackSize(stack, to);
+            if (stack.getCount() > maxStack) {
+                to.setStack(slot, stack.split(maxStack));
+                to.markDirty();
+                cir.setReturnValue(stack);
+                return;
+            }
             to.setStack(slot, stack);
             to.markDirty();
             cir.setReturnValue(ItemStack.EMPTY);
@@ -46,6 +66,7 @@ public abstract class HopperTransferMixin {
 
         // Check if stacks can merge - if not, return original stack unchanged
         if (!ItemStack.areItemsAndComponentsEqual(existingStack, stack)) {
+            invoverstack$traceRejected(to, stack, existingStack, slot);
             cir.setReturnValue(stack);
             return;
         }
@@ -54,25 +75,36 @@ public abstract class HopperTransferMixin {
         int maxStack = StackContext.getEffectiveMaxStackSize(existingStack, to);
         int currentCount = existingStack.getCount();
 
-        DebugLogger.debug("Hopper transfer: item=%s, inventory=%s, isPlayerInv=%b, maxStack=%d, current=%d",
-                existingStack.getItem().toString(),
-                to.getClass().getSimpleName(),
-                StackContext.isPlayerInventory(to),
-                maxStack,
-                currentCount);
+        if (DebugLogger.isEnabled()) {
+            DebugLogger.debug("Hopper transfer: item=%s, inventory=%s, isPlayerInv=%b, maxStack=%d, current=%d",
+                    existingStack.getItem().toString(),
+                    to.getClass().getSimpleName(),
+                    StackContext.isPlayerInventory(to),
+                    maxStack,
+                    currentCount);
+        }
+
+        // Calculate how much we can transfer
+        int space = maxStack - currentCount;
+        int transferAmount = TransferMath.transferAmount(stack.getCount(), currentCount, maxStack);
+
+        if (TransferTrace.isRecording()) {
+            TransferTrace.record(TraceFormat.SOURCE_HOPPER_VANILLA, TransferTrace.kindOf(to), stack.getItem(),
+                    slot, currentCount, currentCount + transferAmount, transferAmount, maxStack, stack.getCount());
+        }
 
-        if (currentCount >= maxStack) {
+        if (transferAmount <= 0) {
             // Slot is full - return original stack unchanged
             cir.setReturnValue(stack);
             return;
         }
 
-        // Calculate how much we can transfer
-        int space = maxStack - currentCount;
-        int transferAmount = Math.min(stack.getCount(), space);
-
         DebugLogger.debug("Hopper transferring %d items (space=%d)", transferAmount, space);
 
+        if (Metrics.isEnabled()) {
+            (transferAmount > 1 ? Metrics.HOPPER_OVERSIZED_TRANSFERS : Metrics.HOPPER_FALLTHROUGHS).increment();
+        }
+
         // Perform the transfer
         existingStack.increment(transferAmount);
         stack.decrement(transferAmount);
@@ -85,4 +117,17 @@ public abstract class HopperTransferMixin {
             cir.setReturnValue(stack);
         }
     }
+
+    /**
+     * Records a transfer the target slot refused outright (invalid item or different stack).
+     * Nothing could be offered, so the record holds the offered item's limit and 0 offered.
+     */
+    @Unique
+    private static void invoverstack$traceRejected(Inventory to, ItemStack stack, ItemStack existingStack, int slot) {
+        if (TransferTrace.isRecording() && !stack.isEmpty()) {
+            int count = existingStack.getCount();
+            TransferTrace.record(TraceFormat.SOURCE_HOPPER_VANILLA, TransferTrace.kindOf(to), stack.getItem(),
+                    slot, count, count, 0, StackContext.getEffectiveMaxStackSize(stack, to), 0);
+        }
+    }
 }
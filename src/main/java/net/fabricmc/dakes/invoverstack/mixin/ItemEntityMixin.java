@@ -1,37 +1,78 @@
 package net.fabricmc.dakes.invoverstack.mixin;
 
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.fabricmc.dakes.invoverstack.metrics.Metrics;
+import net.fabricmc.dakes.invoverstack.util.StackContext;
 import net.minecraft.entity.ItemEntity;
 import net.minecraft.item.ItemStack;
 import org.spongepowered.asm.mixin.Mixin;
-import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
-import org.spongepowered.asm.mixin.injection.Inject;
-import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.Redirect;
 
+/**
+ * Oversize-aware item entity merging.
+ *
+ * Vanilla only merges two item entities when their combined count fits the vanilla max, and its
+ * merge arithmetic goes wrong for entities already holding more than that (e.g. an oversized
+ * stack dropped from a player inventory). Instead, the larger entity is topped up to the merge
+ * cap and the remainder stays in the other one, so dropped items collapse to the fewest entities.
+ *
+ * The merge cap is the vanilla max, or itemEntityMaxCount when set (bounded by the item's player
+ * inventory limit), so one entity can safely carry an oversized count: pickups and hoppers
+ * already take only what fits and leave the rest in the entity.
+ */
 @Mixin(ItemEntity.class)
 public abstract class ItemEntityMixin {
 
-    @Shadow
-    public abstract ItemStack getStack();
+    /**
+     * Whether this entity still has room, used when looking for merge partners.
+     */
+    @Redirect(method = "canMerge()Z",
+            at = @At(value = "INVOKE", target = "Lnet/minecraft/item/ItemStack;getMaxCount()I"))
+    private int invoverstack$mergeCapForSearch(ItemStack stack) {
+        return invoverstack$mergeCap(stack);
+    }
 
     /**
-     * Prevent item merging when combined count would exceed vanilla max.
-     * Without this, items over the vanilla stack limit are voided during merge.
+     * Vanilla refuses the merge when the combined count exceeds the vanilla max. Accept any pair of
+     * equal stacks as long as the target (the larger one) has room.
      */
-    @Inject(method = "tryMerge(Lnet/minecraft/entity/ItemEntity;)V", at = @At("HEAD"), cancellable = true)
-    private void preventVoidingMerge(ItemEntity other, CallbackInfo ci) {
-        ItemStack ourStack = this.getStack();
-        ItemStack theirStack = other.getStack();
+    @Redirect(method = "tryMerge(Lnet/minecraft/entity/ItemEntity;)V",
+            at = @At(value = "INVOKE",
+                    target = "Lnet/minecraft/entity/ItemEntity;canMerge(Lnet/minecraft/item/ItemStack;Lnet/minecraft/item/ItemStack;)Z"))
+    private boolean invoverstack$canMergePartially(ItemStack stack1, ItemStack stack2) {
+        ItemStack target = stack1.getCount() >= stack2.getCount() ? stack1 : stack2;
+        return target.getCount() < invoverstack$mergeCap(target)
+                && ItemStack.areItemsAndComponentsEqual(stack1, stack2);
+    }
 
-        // Only check if items can stack together
-        if (ItemStack.areItemsAndComponentsEqual(ourStack, theirStack)) {
-            int combinedCount = ourStack.getCount() + theirStack.getCount();
-            int vanillaMax = ourStack.getMaxCount(); // Vanilla limit (64 for most items)
+    /**
+     * Tops the target up to the merge cap; the source keeps the remainder.
+     */
+    @Redirect(method = "merge(Lnet/minecraft/entity/ItemEntity;Lnet/minecraft/item/ItemStack;Lnet/minecraft/item/ItemStack;)V",
+            at = @At(value = "INVOKE",
+                    target = "Lnet/minecraft/entity/ItemEntity;merge(Lnet/minecraft/item/ItemStack;Lnet/minecraft/item/ItemStack;I)Lnet/minecraft/item/ItemStack;"))
+    private static ItemStack invoverstack$mergeUpToCap(ItemStack target, ItemStack source, int maxCount) {
+        int moved = Math.max(0, Math.min(invoverstack$mergeCap(target) - target.getCount(), source.getCount()));
+        ItemStack merged = target.copyWithCount(target.getCount() + moved);
+        source.decrement(moved);
+
+        if (Metrics.isEnabled() && !source.isEmpty()) {
+            Metrics.ITEM_ENTITY_PARTIAL_MERGES.increment();
+        }
+        return merged;
+    }
 
-            // If merging would exceed vanilla max, prevent merge to avoid voiding items
-            if (combinedCount > vanillaMax) {
-                ci.cancel();
-            }
+    @Unique
+    private static int invoverstack$mergeCap(ItemStack stack) {
+        int vanillaMax = stack.getMaxCount();
+        CompiledConfig config = ConfigManager.getConfig();
+        if (config.itemEntityMaxCount <= vanillaMax) {
+            return vanillaMax;
         }
+        // Blacklisted and damageable items report their vanilla max here
+        return Math.max(vanillaMax, Math.min(config.itemEntityMaxCount, StackContext.getEffectiveMaxStackSize(stack)));
     }
 }
@@ -0,0 +1,27 @@
+package net.fabricmc.dakes.invoverstack.mixin;
+
+import net.fabricmc.dakes.invoverstack.util.IndexedItem;
+import net.minecraft.item.Item;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+/**
+ * Stores the raw registry id on each item so the stack limit table can be indexed
+ * without a registry lookup.
+ */
+@Mixin(Item.class)
+public abstract class ItemMixin implements IndexedItem {
+
+    @Unique
+    private int invoverstack$limitIndex = -1;
+
+    @Override
+    public int invoverstack$getLimitIndex() {
+        return invoverstack$limitIndex;
+    }
+
+    @Override
+    public void invoverstack$setLimitIndex(int index) {
+        invoverstack$limitIndex = index;
+    }
+}
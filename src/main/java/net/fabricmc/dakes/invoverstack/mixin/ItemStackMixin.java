@@ -4,6 +4,10 @@ import com.mojang.serialization.Codec;
 import com.mojang.serialization.MapCodec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import net.fabricmc.dakes.invoverstack.InvOverstackMod;
+import net.fabricmc.dakes.invoverstack.util.ComponentLimitCache;
+import net.fabricmc.dakes.invoverstack.util.PlayerSlotIndex;
+import net.fabricmc.dakes.invoverstack.util.SlotTracker;
+import net.fabricmc.dakes.invoverstack.util.TrackedStack;
 import net.minecraft.component.ComponentChanges;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
@@ -12,18 +16,36 @@ import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Mutable;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import java.util.Optional;
 
 /**
  * Replaces ItemStack codecs to allow serialization of stacks > 99 in player inventories.
  * Vanilla codec clamps count to 1-99, we allow up to Integer.MAX_VALUE.
+ * Also reports count and component changes of stacks sitting in a tracked slot to its
+ * {@link SlotTracker} ({@link PlayerSlotIndex}, comparator fill of containers),
+ * and holds the per-stack component rule limit ({@link ComponentLimitCache}).
  */
 @Mixin(ItemStack.class)
-public abstract class ItemStackMixin {
+public abstract class ItemStackMixin implements TrackedStack, ComponentLimitCache {
+
+    @Unique
+    private SlotTracker invoverstack$tracker;
+
+    @Unique
+    private int invoverstack$trackedSlot = -1;
+
+    // Id of the limit table the cached component limit was resolved against, 0 = none
+    @Unique
+    private int invoverstack$componentLimitTableId;
+
+    @Unique
+    private int invoverstack$componentLimit;
 
     @Shadow
     @Final
@@ -67,4 +89,77 @@ public abstract class ItemStackMixin {
             InvOverstackMod.LOGGER.error("Failed to replace ItemStack codecs", e);
         }
     }
+
+    @Override
+    public SlotTracker invoverstack$getTracker() {
+        return invoverstack$tracker;
+    }
+
+    @Override
+    public int invoverstack$getTrackedSlot() {
+        return invoverstack$trackedSlot;
+    }
+
+    @Override
+    public void invoverstack$track(SlotTracker tracker, int slot) {
+        invoverstack$tracker = tracker;
+        invoverstack$trackedSlot = slot;
+    }
+
+    /**
+     * increment, decrement and split all go through setCount.
+     */
+    @Inject(method = "setCount(I)V", at = @At("TAIL"))
+    private void onSetCount(int count, CallbackInfo ci) {
+        SlotTracker tracker = invoverstack$tracker;
+        if (tracker != null) {
+            tracker.onCountChanged(invoverstack$trackedSlot, (ItemStack) (Object) this);
+        }
+    }
+
+    @Override
+    public int invoverstack$getComponentLimitTableId() {
+        return invoverstack$componentLimitTableId;
+    }
+
+    @Override
+    public int invoverstack$getComponentLimit() {
+        return invoverstack$componentLimit;
+    }
+
+    @Override
+    public void invoverstack$setComponentLimit(int tableId, int limit) {
+        invoverstack$componentLimitTableId = tableId;
+        invoverstack$componentLimit = limit;
+    }
+
+    @Inject(method = {
+            "applyChanges(Lnet/minecraft/component/ComponentChanges;)V",
+            "applyUnvalidatedChanges(Lnet/minecraft/component/ComponentChanges;)V",
+            "applyComponentsFrom(Lnet/minecraft/component/ComponentMap;)V"
+    }, at = @At("TAIL"))
+    private void invoverstack$onComponentsApplied(CallbackInfo ci) {
+        invoverstack$onComponentsChanged();
+    }
+
+    @Inject(method = {
+            "set(Lnet/minecraft/component/ComponentType;Ljava/lang/Object;)Ljava/lang/Object;",
+            "remove(Lnet/minecraft/component/ComponentType;)Ljava/lang/Object;"
+    }, at = @At("TAIL"))
+    private void invoverstack$onComponentChanged(CallbackInfoReturnable<Object> cir) {
+        invoverstack$onComponentsChanged();
+    }
+
+    /**
+     * Components can change the stack's limit, so a tracked slot has to recompute its room like
+     * after a count change, once the cached limit is dropped.
+     */
+    @Unique
+    private void invoverstack$onComponentsChanged() {
+        invoverstack$componentLimitTableId = 0;
+        SlotTracker tracker = invoverstack$tracker;
+        if (tracker != null) {
+            tracker.onCountChanged(invoverstack$trackedSlot, (ItemStack) (Object) this);
+        }
+    }
 }
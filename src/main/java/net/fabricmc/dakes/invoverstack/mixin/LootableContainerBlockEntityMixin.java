@@ -0,0 +1,65 @@
+package net.fabricmc.dakes.invoverstack.mixin;
+
+import net.fabricmc.dakes.invoverstack.util.ComparatorFillHolder;
+import net.fabricmc.dakes.invoverstack.util.ContainerFill;
+import net.minecraft.block.entity.LootableContainerBlockEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.collection.DefaultedList;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import java.util.List;
+
+/**
+ * Keeps the {@link ContainerFill} of chests, barrels, shulker boxes, dispensers, crafters and
+ * hoppers current from their slot writes. Hoppers override the slot methods, see
+ * {@code HopperBlockEntityMixin}.
+ */
+@Mixin(LootableContainerBlockEntity.class)
+public abstract class LootableContainerBlockEntityMixin implements ComparatorFillHolder {
+
+    @Unique
+    private final ContainerFill invoverstack$containerFill = new ContainerFill();
+
+    @Shadow
+    protected abstract DefaultedList<ItemStack> getHeldStacks();
+
+    @Override
+    public ContainerFill invoverstack$getContainerFill() {
+        return invoverstack$containerFill;
+    }
+
+    @Override
+    public List<ItemStack> invoverstack$getHeldStacks() {
+        return getHeldStacks();
+    }
+
+    /**
+     * setStack marks the container dirty before the TAIL hook sees the new stack, so the
+     * change is announced up front to keep the markDirty fallback from dropping the fill.
+     */
+    @Inject(method = "setStack(ILnet/minecraft/item/ItemStack;)V", at = @At("HEAD"))
+    private void invoverstack$beforeSetStack(int slot, ItemStack stack, CallbackInfo ci) {
+        invoverstack$containerFill.expectChange();
+    }
+
+    @Inject(method = "setStack(ILnet/minecraft/item/ItemStack;)V", at = @At("TAIL"))
+    private void invoverstack$afterSetStack(int slot, ItemStack stack, CallbackInfo ci) {
+        invoverstack$containerFill.onSlotChanged(getHeldStacks(), slot);
+    }
+
+    @Inject(method = "removeStack(II)Lnet/minecraft/item/ItemStack;", at = @At("TAIL"))
+    private void invoverstack$afterSplitStack(int slot, int amount, CallbackInfoReturnable<ItemStack> cir) {
+        invoverstack$containerFill.onSlotChanged(getHeldStacks(), slot);
+    }
+
+    @Inject(method = "removeStack(I)Lnet/minecraft/item/ItemStack;", at = @At("TAIL"))
+    private void invoverstack$afterRemoveStack(int slot, CallbackInfoReturnable<ItemStack> cir) {
+        invoverstack$containerFill.onSlotChanged(getHeldStacks(), slot);
+    }
+}
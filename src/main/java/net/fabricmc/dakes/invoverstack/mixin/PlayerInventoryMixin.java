@@ -1,26 +1,81 @@
 package net.fabricmc.dakes.invoverstack.mixin;
 
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.fabricmc.dakes.invoverstack.trace.TraceFormat;
+import net.fabricmc.dakes.invoverstack.trace.TransferTrace;
+import net.fabricmc.dakes.invoverstack.util.CompactDrops;
+import net.fabricmc.dakes.invoverstack.util.PlayerSlotIndex;
+import net.fabricmc.dakes.invoverstack.util.SlotIndexedInventory;
 import net.fabricmc.dakes.invoverstack.util.StackContext;
+import net.fabricmc.dakes.invoverstack.util.TransferMath;
 import net.minecraft.entity.player.PlayerInventory;
-import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.util.collection.DefaultedList;
+import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Overwrite;
+import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.Unique;
-
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 @Mixin(PlayerInventory.class)
-public abstract class PlayerInventoryMixin {
+public abstract class PlayerInventoryMixin implements SlotIndexedInventory {
+
+    @Shadow
+    @Final
+    private DefaultedList<ItemStack> main;
 
-    // Cache max stack sizes per item to avoid millions of StackContext calls during rapid crafting
+    // Item -> slots-with-room index, replaces the 36-slot scan when looking for a merge target
     @Unique
-    private final Map<Item, Integer> invoverstack$maxStackCache = new ConcurrentHashMap<>();
+    private final PlayerSlotIndex invoverstack$slotIndex = new PlayerSlotIndex((PlayerInventory) (Object) this);
+
+    @Override
+    public PlayerSlotIndex invoverstack$getPlayerSlotIndex() {
+        return invoverstack$slotIndex;
+    }
+
+    /**
+     * Keeps the slot index current on every write to the main slot list
+     * (setStack, removeStack, swapping hotbar slots, loading from disk, ...).
+     */
+    @Redirect(
+        method = "*",
+        at = @At(
+            value = "INVOKE",
+            target = "Lnet/minecraft/util/collection/DefaultedList;set(ILjava/lang/Object;)Ljava/lang/Object;"
+        )
+    )
+    private Object invoverstack$trackMainSet(DefaultedList<ItemStack> list, int slot, Object stack) {
+        Object previous = list.set(slot, (ItemStack) stack);
+        if (list == this.main) {
+            invoverstack$slotIndex.onSlotChanged(slot);
+        }
+        return previous;
+    }
+
+    /**
+     * Compact death drops: the main inventory is dropped as few oversized entities instead of
+     * one per slot. Vanilla then drops the (now empty) main slots and the equipment as usual.
+     */
+    @Inject(method = "dropAll()V", at = @At("HEAD"))
+    private void invoverstack$compactDropAll(CallbackInfo ci) {
+        if (ConfigManager.getConfig().compactDrops) {
+            CompactDrops.dropMain((PlayerInventory) (Object) this);
+        }
+    }
+
+    @Inject(method = "clear()V", at = @At("TAIL"))
+    private void invoverstack$onClear(CallbackInfo ci) {
+        invoverstack$slotIndex.invalidate();
+    }
 
     /**
-     * Get cached max stack size for an item in this player inventory.
-     * Caches result to avoid repeated calls to StackContext during crafting operations.
+     * Get max stack size for an item in this player inventory.
+     * StackContext reads the limit table of the active config snapshot, so this is a single
+     * array load and always reflects the latest /invoverstack reload or set.
      */
     @Unique
     private int invoverstack$getCachedMaxStack(ItemStack stack) {
@@ -28,14 +83,12 @@ public abstract class PlayerInventoryMixin {
             return 64;
         }
 
-        Item item = stack.getItem();
-        return invoverstack$maxStackCache.computeIfAbsent(item,
-            k -> StackContext.getEffectiveMaxStackSize(stack, (PlayerInventory) (Object) this));
+        return StackContext.getEffectiveMaxStackSize(stack, (PlayerInventory) (Object) this);
     }
 
     /**
      * @author InvOverstack
-     * @reason Optimized slot search to avoid millions of component comparisons during rapid crafting
+     * @reason Indexed slot search to avoid millions of component comparisons during rapid crafting
      */
     @Overwrite
     public int getOccupiedSlotWithRoomForStack(ItemStack stack) {
@@ -43,26 +96,17 @@ public abstract class PlayerInventoryMixin {
             return -1;
         }
 
-        PlayerInventory self = (PlayerInventory) (Object) this;
-        net.minecraft.item.Item targetItem = stack.getItem();
-        int maxCount = invoverstack$getCachedMaxStack(stack);
-
-        // Single pass through main inventory + hotbar (36 slots total)
-        for (int i = 0; i < 36; i++) {
-            ItemStack slotStack = self.getStack(i);
-
-            // Quick rejection filters before expensive comparison
-            if (slotStack.isEmpty()) continue;
-            if (slotStack.getCount() >= maxCount) continue;
-            if (slotStack.getItem() != targetItem) continue;
-
-            // Only do expensive component comparison if all quick checks passed
-            if (ItemStack.areItemsAndComponentsEqual(slotStack, stack)) {
-                return i;
-            }
-        }
+        // Index lookup instead of scanning all 36 slots
+        return invoverstack$slotIndex.findSlotWithRoom(stack);
+    }
 
-        return -1;
+    /**
+     * @author InvOverstack
+     * @reason Free-slot bitmap instead of a linear scan, also used by addStack(ItemStack)
+     */
+    @Overwrite
+    public int getEmptySlot() {
+        return invoverstack$slotIndex.findEmptySlot();
     }
 
     /**
@@ -99,15 +143,24 @@ public abstract class PlayerInventoryMixin {
         if (slotStack.isEmpty()) {
             // Empty slot - add as much as we can up to max stack size
             int maxCount = invoverstack$getCachedMaxStack(stack);
-            int toAdd = Math.min(remainingCount, maxCount);
+            int toAdd = TransferMath.transferAmount(remainingCount, 0, maxCount);
+            if (TransferTrace.isRecording()) {
+                TransferTrace.record(TraceFormat.SOURCE_PLAYER_ADD_STACK, TraceFormat.KIND_PLAYER, stack.getItem(), slot,
+                        0, toAdd, toAdd, maxCount, remainingCount);
+            }
             self.setStack(slot, stack.copyWithCount(toAdd));
             return remainingCount - toAdd;
         }
 
         // Slot has items - try to merge
         int maxCount = invoverstack$getCachedMaxStack(slotStack);
-        int roomInSlot = maxCount - slotStack.getCount();
-        int toAdd = Math.min(remainingCount, roomInSlot);
+        int currentCount = slotStack.getCount();
+        int toAdd = TransferMath.transferAmount(remainingCount, currentCount, maxCount);
+
+        if (TransferTrace.isRecording()) {
+            TransferTrace.record(TraceFormat.SOURCE_PLAYER_ADD_STACK, TraceFormat.KIND_PLAYER, slotStack.getItem(), slot,
+                    currentCount, currentCount + toAdd, toAdd, maxCount, remainingCount);
+        }
 
         if (toAdd > 0) {
             slotStack.increment(toAdd);
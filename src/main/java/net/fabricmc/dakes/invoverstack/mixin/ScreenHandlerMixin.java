@@ -1,43 +1,95 @@
 package net.fabricmc.dakes.invoverstack.mixin;
 
+import net.fabricmc.dakes.invoverstack.network.CountDeltaSync;
+import net.fabricmc.dakes.invoverstack.util.ComparatorFill;
+import net.fabricmc.dakes.invoverstack.util.CountDeltaHolder;
+import net.fabricmc.dakes.invoverstack.util.InsertPlanner;
+import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.screen.ScreenHandler;
-import net.minecraft.util.math.MathHelper;
+import net.minecraft.screen.ScreenHandlerSyncHandler;
+import net.minecraft.screen.slot.Slot;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Overwrite;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
+import java.util.List;
+
 /**
  * Fixes comparator output to use vanilla stack limits (64) for accurate signal strength.
  * This is the surgical fix that allows Easy Shulker Boxes to work while keeping comparators correct.
+ * The fill of containers is maintained from their slot writes, see {@link ComparatorFill}.
+ * Slot updates sent to players go through {@link CountDeltaSync} when only the count changed.
+ * Oversized stacks and inserts into player slots are handled by {@link InsertPlanner}.
  */
 @Mixin(ScreenHandler.class)
-public class ScreenHandlerMixin {
+public class ScreenHandlerMixin implements CountDeltaHolder {
+
+    @Unique
+    private CountDeltaSync invoverstack$countDeltaSync;
+
+    @Override
+    public CountDeltaSync invoverstack$getCountDeltaSync() {
+        return invoverstack$countDeltaSync;
+    }
+
+    @Override
+    public void invoverstack$setCountDeltaSync(CountDeltaSync sync) {
+        invoverstack$countDeltaSync = sync;
+    }
 
-    @Inject(method = "calculateComparatorOutput(Lnet/minecraft/inventory/Inventory;)I", at = @At("HEAD"), cancellable = true)
-    private static void onCalculateComparatorOutput(Inventory inventory, CallbackInfoReturnable<Integer> cir) {
+    /**
+     * @author InvOverstack
+     * @reason Comparator output with vanilla stack limits, from the tracked fill; called on every
+     * comparator update, overwritten to avoid allocating a CallbackInfoReturnable per call
+     */
+    @Overwrite
+    public static int calculateComparatorOutput(@Nullable Inventory inventory) {
         if (inventory == null) {
-            cir.setReturnValue(0);
-            return;
+            return 0;
         }
+        return ComparatorFill.calculateOutput(inventory);
+    }
+
+    @Inject(method = "insertItem(Lnet/minecraft/item/ItemStack;IIZ)Z", at = @At("HEAD"), cancellable = true)
+    private void invoverstack$planInsert(ItemStack stack, int startIndex, int endIndex, boolean fromLast,
+                                         CallbackInfoReturnable<Boolean> cir) {
+        List<Slot> slots = ((ScreenHandler) (Object) this).slots;
+        PlayerInventory player = InsertPlanner.playerTarget(slots, startIndex, endIndex);
+        if (player != null) {
+            cir.setReturnValue(InsertPlanner.insertIntoPlayer(player, slots, stack, startIndex, endIndex, fromLast));
+        } else if (InsertPlanner.shouldPlan(stack)) {
+            cir.setReturnValue(InsertPlanner.insert(slots, stack, startIndex, endIndex, fromLast));
+        }
+    }
 
-        int i = 0;
-        float f = 0.0F;
-
-        for (int j = 0; j < inventory.size(); j++) {
-            ItemStack itemStack = inventory.getStack(j);
-            if (!itemStack.isEmpty()) {
-                // Force vanilla max stack size (64) for comparator calculations
-                // This ensures comparators show correct signal strength regardless of mod stack sizes
-                int vanillaMax = Math.min(64, itemStack.getItem().getMaxCount());
-                f += (float)itemStack.getCount() / (float)vanillaMax;
-                i++;
+    @Redirect(method = "checkSlotUpdates(ILnet/minecraft/item/ItemStack;Ljava/util/function/Supplier;)V",
+            at = @At(value = "INVOKE", target = "Lnet/minecraft/screen/ScreenHandlerSyncHandler;updateSlot(Lnet/minecraft/screen/ScreenHandler;ILnet/minecraft/item/ItemStack;)V"))
+    private void invoverstack$syncSlot(ScreenHandlerSyncHandler syncHandler, ScreenHandler handler, int slot, ItemStack stack) {
+        CountDeltaSync sync = invoverstack$countDeltaSync;
+        if (sync != null) {
+            if (sync.offer(slot, stack)) {
+                return;
             }
+            sync.beforeSlotUpdate(slot, stack);
         }
+        syncHandler.updateSlot(handler, slot, stack);
+    }
 
-        f /= (float)inventory.size();
-        cir.setReturnValue(MathHelper.floor(f * 14.0F) + (i > 0 ? 1 : 0));
+    @Redirect(method = "syncState()V",
+            at = @At(value = "INVOKE", target = "Lnet/minecraft/screen/ScreenHandlerSyncHandler;updateState(Lnet/minecraft/screen/ScreenHandler;Ljava/util/List;Lnet/minecraft/item/ItemStack;[I)V"))
+    private void invoverstack$syncState(ScreenHandlerSyncHandler syncHandler, ScreenHandler handler,
+                                        List<ItemStack> stacks, ItemStack cursorStack, int[] properties) {
+        CountDeltaSync sync = invoverstack$countDeltaSync;
+        if (sync != null) {
+            sync.beforeStateUpdate(stacks);
+        }
+        syncHandler.updateState(handler, stacks, cursorStack, properties);
     }
 }
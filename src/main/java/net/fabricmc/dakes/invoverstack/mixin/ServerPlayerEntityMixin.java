@@ -0,0 +1,24 @@
+package net.fabricmc.dakes.invoverstack.mixin;
+
+import net.fabricmc.dakes.invoverstack.network.CountDeltaSync;
+import net.fabricmc.dakes.invoverstack.util.CountDeltaHolder;
+import net.minecraft.screen.ScreenHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Attaches a {@link CountDeltaSync} to every screen handler synced to a player, including the
+ * player's own inventory handler (opened on spawn).
+ */
+@Mixin(ServerPlayerEntity.class)
+public class ServerPlayerEntityMixin {
+
+    @Inject(method = "onScreenHandlerOpened(Lnet/minecraft/screen/ScreenHandler;)V", at = @At("TAIL"))
+    private void invoverstack$onScreenHandlerOpened(ScreenHandler handler, CallbackInfo ci) {
+        ((CountDeltaHolder) handler).invoverstack$setCountDeltaSync(
+                new CountDeltaSync((ServerPlayerEntity) (Object) this, handler));
+    }
+}
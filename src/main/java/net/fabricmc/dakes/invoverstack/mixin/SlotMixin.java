@@ -1,19 +1,24 @@
 package net.fabricmc.dakes.invoverstack.mixin;
 
+import net.fabricmc.dakes.invoverstack.metrics.Metrics;
 import net.fabricmc.dakes.invoverstack.util.StackContext;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.screen.slot.Slot;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.Shadow;
-import org.spongepowered.asm.mixin.injection.At;
-import org.spongepowered.asm.mixin.injection.Inject;
-import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+import org.spongepowered.asm.mixin.Unique;
 
 /**
  * Provides context-aware stack limits for slots.
  * Player inventory slots use configured limits, container slots use vanilla limits.
+ * <p>
+ * Both overloads are overwritten rather than injected into: a cancellable injection allocates a
+ * {@code CallbackInfoReturnable} per call, and these run hundreds of times per tick. Subclasses
+ * overriding them (armor slots, result slots, ...) are unaffected, as before.
+ * </p>
  */
 @Mixin(Slot.class)
 public abstract class SlotMixin {
@@ -22,28 +27,37 @@ public abstract class SlotMixin {
     @Final
     public Inventory inventory;
 
-    // Called hundreds of times per tick - must be fast, no logging
-    @Inject(method = "getMaxItemCount()I", at = @At("HEAD"), cancellable = true)
-    private void onGetMaxItemCount(CallbackInfoReturnable<Integer> cir) {
-        try {
-            Slot self = (Slot) (Object) this;
-            ItemStack currentStack = self.getStack();
-            int effectiveMax = StackContext.getEffectiveMaxStackSize(currentStack, this.inventory);
-            cir.setReturnValue(effectiveMax);
-        } catch (Exception e) {
-            // Graceful degradation
-        }
+    @Shadow
+    public abstract ItemStack getStack();
+
+    /**
+     * @author InvOverstack
+     * @reason Configured limit for the stack in the slot, without per-call allocation
+     */
+    @Overwrite
+    public int getMaxItemCount() {
+        return invoverstack$limit(getStack());
+    }
+
+    /**
+     * @author InvOverstack
+     * @reason Configured limit for the given stack, without per-call allocation
+     */
+    @Overwrite
+    public int getMaxItemCount(ItemStack stack) {
+        return invoverstack$limit(stack);
     }
 
     // Called hundreds of times per tick - must be fast, no logging
-    @Inject(method = "getMaxItemCount(Lnet/minecraft/item/ItemStack;)I",
-            at = @At("HEAD"), cancellable = true)
-    private void onGetMaxItemCountForStack(ItemStack stack, CallbackInfoReturnable<Integer> cir) {
-        try {
+    @Unique
+    private int invoverstack$limit(ItemStack stack) {
+        if (Metrics.isEnabled()) {
+            Metrics.SLOT_LIMIT_CALLS.increment();
+            long start = Metrics.startSample();
             int effectiveMax = StackContext.getEffectiveMaxStackSize(stack, this.inventory);
-            cir.setReturnValue(effectiveMax);
-        } catch (Exception e) {
-            // Graceful degradation
+            Metrics.endSample(Metrics.SLOT_LIMIT_LATENCY, start);
+            return effectiveMax;
         }
+        return StackContext.getEffectiveMaxStackSize(stack, this.inventory);
     }
 }
@@ -0,0 +1,57 @@
+package net.fabricmc.dakes.invoverstack.network;
+
+import net.fabricmc.dakes.invoverstack.InvOverstackMod;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+/**
+ * Server to client payload carrying count-only slot updates, see {@link CountDeltaSync}.
+ * <p>
+ * The body is a flat stream of varints made of one section per screen handler:
+ * {@code syncId, revision, n} followed by {@code n} pairs of {@code slot, count}.
+ * Only sent to clients that registered a receiver for {@link #ID}.
+ * </p>
+ */
+public record CountDeltaPayload(int[] data) implements CustomPayload {
+
+    public static final CustomPayload.Id<CountDeltaPayload> ID =
+            new CustomPayload.Id<>(Identifier.of(InvOverstackMod.MOD_ID, "count_delta"));
+
+    public static final PacketCodec<PacketByteBuf, CountDeltaPayload> CODEC =
+            PacketCodec.of(CountDeltaPayload::write, CountDeltaPayload::read);
+
+    // Offsets within a section
+    public static final int SYNC_ID = 0;
+    public static final int REVISION = 1;
+    public static final int PAIRS = 2;
+    public static final int HEADER_INTS = 3;
+
+    // Generous upper bound, a section per open handler with a pair per slot
+    private static final int MAX_INTS = 1 << 16;
+
+    private void write(PacketByteBuf buf) {
+        buf.writeVarInt(data.length);
+        for (int value : data) {
+            buf.writeVarInt(value);
+        }
+    }
+
+    private static CountDeltaPayload read(PacketByteBuf buf) {
+        int length = buf.readVarInt();
+        if (length < 0 || length > MAX_INTS) {
+            throw new IllegalArgumentException("Count delta payload too large: " + length);
+        }
+        int[] data = new int[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = buf.readVarInt();
+        }
+        return new CountDeltaPayload(data);
+    }
+
+    @Override
+    public Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
@@ -0,0 +1,192 @@
+package net.fabricmc.dakes.invoverstack.network;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.item.ItemStack;
+import net.minecraft.screen.ScreenHandler;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Count-only slot sync (countDeltaSync) for one screen handler of one player.
+ * <p>
+ * Vanilla sends the whole {@link ItemStack}, components included, every time a slot changes.
+ * When the client runs the mod and only the count of a slot changed, the update is queued here
+ * instead and all queued counts are sent at the end of the tick as a single
+ * {@link CountDeltaPayload} per player. Everything else (different item or components, empty
+ * slots, vanilla clients) goes through the normal sync.
+ * </p>
+ * <p>
+ * To know when a count-only update is possible, this keeps a copy of what the client was last
+ * sent for each slot. Queued counts are flushed before any vanilla update of the same handler,
+ * so the client sees changes in order. Server thread only.
+ * </p>
+ */
+public final class CountDeltaSync {
+
+    // Handlers with queued counts, flushed at the end of the tick
+    private static final List<CountDeltaSync> dirty = new ArrayList<>();
+
+    private final ServerPlayerEntity player;
+    private final ScreenHandler handler;
+
+    // What the client was last sent per slot, null if unknown
+    private ItemStack[] sent;
+    // Queued count per slot, -1 if none
+    private int[] pendingCounts;
+    private final IntArrayList pendingSlots = new IntArrayList();
+    private boolean active;
+
+    public CountDeltaSync(ServerPlayerEntity player, ScreenHandler handler) {
+        this.player = player;
+        this.handler = handler;
+    }
+
+    /**
+     * Tries to queue a slot update as a count-only delta.
+     *
+     * @param slot  The slot index
+     * @param stack The new stack of the slot
+     * @return true if the update was queued and the vanilla packet must not be sent
+     */
+    public boolean offer(int slot, ItemStack stack) {
+        if (!checkActive()) {
+            return false;
+        }
+
+        ensureCapacity(slot + 1);
+        ItemStack previous = sent[slot];
+        if (previous == null || previous.isEmpty() || stack.isEmpty()
+                || !ItemStack.areItemsAndComponentsEqual(previous, stack)) {
+            return false;
+        }
+
+        int count = stack.getCount();
+        previous.setCount(count);
+        if (pendingCounts[slot] < 0) {
+            if (pendingSlots.isEmpty()) {
+                dirty.add(this);
+            }
+            pendingSlots.add(slot);
+        }
+        pendingCounts[slot] = count;
+        return true;
+    }
+
+    /**
+     * Called before vanilla sends a full slot update to this handler's client.
+     *
+     * @param slot  The slot index
+     * @param stack The stack being sent
+     */
+    public void beforeSlotUpdate(int slot, ItemStack stack) {
+        if (!active) {
+            return;
+        }
+        flush();
+        ensureCapacity(slot + 1);
+        sent[slot] = stack.copy();
+    }
+
+    /**
+     * Called before vanilla sends the full contents of this handler to its client.
+     *
+     * @param stacks The stacks being sent, one per slot
+     */
+    public void beforeStateUpdate(List<ItemStack> stacks) {
+        if (!active) {
+            return;
+        }
+        flush();
+        ensureCapacity(stacks.size());
+        for (int slot = 0; slot < stacks.size(); slot++) {
+            sent[slot] = stacks.get(slot).copy();
+        }
+    }
+
+    /**
+     * Sends the queued counts of this handler right away.
+     */
+    public void flush() {
+        if (pendingSlots.isEmpty()) {
+            return;
+        }
+        IntArrayList data = new IntArrayList(CountDeltaPayload.HEADER_INTS + pendingSlots.size() * 2);
+        writeSection(data);
+        dirty.remove(this);
+        send(player, data);
+    }
+
+    /**
+     * Sends one payload per player with all counts queued during the tick.
+     * Called at the end of every server tick.
+     */
+    public static void tick(MinecraftServer server) {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        Map<ServerPlayerEntity, IntArrayList> byPlayer = new IdentityHashMap<>();
+        for (CountDeltaSync sync : dirty) {
+            sync.writeSection(byPlayer.computeIfAbsent(sync.player, player -> new IntArrayList()));
+        }
+        dirty.clear();
+
+        byPlayer.forEach(CountDeltaSync::send);
+    }
+
+    private void writeSection(IntArrayList data) {
+        data.add(handler.syncId);
+        data.add(handler.nextRevision());
+        data.add(pendingSlots.size());
+        for (int i = 0; i < pendingSlots.size(); i++) {
+            int slot = pendingSlots.getInt(i);
+            data.add(slot);
+            data.add(pendingCounts[slot]);
+            pendingCounts[slot] = -1;
+        }
+        pendingSlots.clear();
+    }
+
+    private static void send(ServerPlayerEntity player, IntArrayList data) {
+        if (!player.isDisconnected()) {
+            ServerPlayNetworking.send(player, new CountDeltaPayload(data.toIntArray()));
+        }
+    }
+
+    /**
+     * Deltas are only sent while enabled and the client can receive them. When that changes,
+     * the last sent stacks are forgotten, since vanilla updates are not recorded while inactive.
+     */
+    private boolean checkActive() {
+        boolean now = ConfigManager.getConfig().countDeltaSync
+                && ServerPlayNetworking.canSend(player, CountDeltaPayload.ID);
+        if (now != active) {
+            if (!now) {
+                flush();
+            }
+            if (sent != null) {
+                Arrays.fill(sent, null);
+            }
+            active = now;
+        }
+        return now;
+    }
+
+    private void ensureCapacity(int size) {
+        int needed = Math.max(size, handler.slots.size());
+        if (sent == null || sent.length < needed) {
+            int oldLength = sent == null ? 0 : sent.length;
+            sent = sent == null ? new ItemStack[needed] : Arrays.copyOf(sent, needed);
+            pendingCounts = pendingCounts == null ? new int[needed] : Arrays.copyOf(pendingCounts, needed);
+            Arrays.fill(pendingCounts, oldLength, needed, -1);
+        }
+    }
+}
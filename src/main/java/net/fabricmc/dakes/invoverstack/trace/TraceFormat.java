@@ -0,0 +1,121 @@
+package net.fabricmc.dakes.invoverstack.trace;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Binary layout of transfer trace files.
+ * <p>
+ * A file is a header ({@link #MAGIC}, {@link #VERSION}, {@link #RECORD_INTS}, record count),
+ * the records as big-endian ints, an item name table (count, then raw id + UTF name pairs), then
+ * a config table (count, then generation + byte length + UTF-8 config JSON) holding the config
+ * of every generation published while recording. Each record is {@link #RECORD_INTS} ints; see
+ * the {@code F_*} field offsets.
+ * </p>
+ * <p>
+ * No Minecraft classes are referenced, so files can be read and described outside the game.
+ * </p>
+ */
+public final class TraceFormat {
+
+    public static final int MAGIC = 0x494F5354; // "IOST"
+    public static final int VERSION = 3;
+
+    // Record fields
+    public static final int F_HEADER = 0;   // source << 8 | inventory kind
+    public static final int F_ITEM = 1;     // raw item id
+    public static final int F_SLOT = 2;
+    public static final int F_BEFORE = 3;   // target slot count before
+    public static final int F_AFTER = 4;    // target slot count after
+    public static final int F_AMOUNT = 5;   // items moved
+    public static final int F_LIMIT = 6;    // max stack size of the target slot
+    public static final int F_OFFERED = 7;  // items available to move
+    public static final int F_GENERATION = 8; // low 32 bits of the config generation the limit came from
+    public static final int RECORD_INTS = 9;
+
+    // Sources
+    public static final int SOURCE_HOPPER_VANILLA = 0;
+    public static final int SOURCE_HOPPER_LITHIUM = 1;
+    public static final int SOURCE_PLAYER_ADD_STACK = 2;
+    public static final int SOURCE_HOPPER_LITHIUM_SINGLE = 3; // Lithium's own single-item move
+
+    // Inventory kinds
+    public static final int KIND_PLAYER = 0;
+    public static final int KIND_CONTAINER = 1;
+    public static final int KIND_CUSTOM = 2;    // inventory with a custom InventoryPolicy
+
+    private TraceFormat() {
+    }
+
+    public static int header(int source, int inventoryKind) {
+        return source << 8 | inventoryKind;
+    }
+
+    public static int source(int header) {
+        return header >>> 8;
+    }
+
+    public static int inventoryKind(int header) {
+        return header & 0xFF;
+    }
+
+    public static void writeHeader(DataOutputStream out, int records) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(RECORD_INTS);
+        out.writeInt(records);
+    }
+
+    /**
+     * Reads and checks a header.
+     *
+     * @return The record count
+     * @throws IOException if the stream is not a supported trace file
+     */
+    public static int readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an InvOverstack transfer trace");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported trace version " + version);
+        }
+        int recordInts = in.readInt();
+        if (recordInts != RECORD_INTS) {
+            throw new IOException("Unexpected record width " + recordInts);
+        }
+        return in.readInt();
+    }
+
+    /**
+     * @param records  Records, {@link #RECORD_INTS} ints each
+     * @param index    Record index
+     * @param itemName Name of the record's item
+     * @return Human readable form of one record
+     */
+    public static String describe(int[] records, int index, String itemName) {
+        int base = index * RECORD_INTS;
+        int header = records[base + F_HEADER];
+        return String.format("#%d source=%d kind=%s item=%s slot=%d before=%d after=%d amount=%d limit=%d offered=%d generation=%d",
+                index,
+                source(header),
+                kindName(inventoryKind(header)),
+                itemName,
+                records[base + F_SLOT],
+                records[base + F_BEFORE],
+                records[base + F_AFTER],
+                records[base + F_AMOUNT],
+                records[base + F_LIMIT],
+                records[base + F_OFFERED],
+                records[base + F_GENERATION]);
+    }
+
+    private static String kindName(int kind) {
+        return switch (kind) {
+            case KIND_PLAYER -> "player";
+            case KIND_CONTAINER -> "container";
+            default -> "custom";
+        };
+    }
+}
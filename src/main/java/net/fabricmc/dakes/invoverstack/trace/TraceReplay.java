@@ -0,0 +1,155 @@
+package net.fabricmc.dakes.invoverstack.trace;
+
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.fabricmc.dakes.invoverstack.config.ModConfig;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Offline harness that replays a dumped transfer trace through the mod's limit resolution.
+ * <p>
+ * For every config generation recorded in the trace, the recorded config is compiled and
+ * published, and the records taken under it are resolved again by {@link TraceVerifier}: the
+ * limit through {@code StackContext}, the amount and resulting count from that limit. Every
+ * record that disagrees with the recorded values is reported, and repeated {@link #replay()}
+ * passes time the resolution path on the recorded workload.
+ * </p>
+ * <p>
+ * Needs bootstrapped registries with the mod's mixins applied; run it with
+ * {@code ./gradlew :benchmarks:replayTrace -Ptrace=<trace.bin>}, which boots the game through
+ * Knot. Generations whose config uses item tags are not replayed, since tags are only bound
+ * once a world loads its data packs. Publishes configs, so never use it in a running game.
+ * </p>
+ */
+public final class TraceReplay {
+
+    private final int count;
+    private final TraceVerifier verifier;
+    // Recorded generation -> its config, compiled for this session
+    private final Map<Integer, CompiledConfig> configs = new TreeMap<>();
+    private final int replayable;
+
+    private TraceReplay(int[] records, Map<Integer, String> itemNames, Map<Integer, String> recordedConfigs) {
+        this.count = records.length / TraceFormat.RECORD_INTS;
+        this.verifier = new TraceVerifier(records, rawId -> item(itemNames.get(rawId)));
+
+        int replayable = 0;
+        for (Map.Entry<Integer, String> entry : recordedConfigs.entrySet()) {
+            ModConfig parsed = ConfigManager.parseConfig(entry.getValue());
+            if (parsed == null) {
+                continue;
+            }
+            CompiledConfig config = CompiledConfig.compile(parsed);
+            if (!config.usesItemTags()) {
+                configs.put(entry.getKey(), config);
+                replayable += verifier.countGeneration(entry.getKey());
+            }
+        }
+        this.replayable = replayable;
+    }
+
+    private static Item item(String name) {
+        Identifier id = name != null ? Identifier.tryParse(name) : null;
+        return id != null && Registries.ITEM.containsId(id) ? Registries.ITEM.get(id) : null;
+    }
+
+    /**
+     * Loads a trace file. Registries must be initialized.
+     *
+     * @throws IOException if the file cannot be read or is not a supported trace file
+     */
+    public static TraceReplay load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int count = TraceFormat.readHeader(in);
+            int[] records = new int[count * TraceFormat.RECORD_INTS];
+            for (int i = 0; i < records.length; i++) {
+                records[i] = in.readInt();
+            }
+
+            Map<Integer, String> itemNames = new HashMap<>();
+            int names = in.readInt();
+            for (int i = 0; i < names; i++) {
+                itemNames.put(in.readInt(), in.readUTF());
+            }
+
+            Map<Integer, String> recordedConfigs = new HashMap<>();
+            int configs = in.readInt();
+            for (int i = 0; i < configs; i++) {
+                int generation = in.readInt();
+                byte[] json = new byte[in.readInt()];
+                in.readFully(json);
+                recordedConfigs.put(generation, new String(json, StandardCharsets.UTF_8));
+            }
+
+            return new TraceReplay(records, itemNames, recordedConfigs);
+        }
+    }
+
+    /**
+     * @return Number of records in the trace
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return Number of records taken under a replayable config generation
+     */
+    public int replayable() {
+        return replayable;
+    }
+
+    /**
+     * Checks every replayable record against the limit resolution.
+     *
+     * @return The verification result, describing every mismatching record
+     */
+    public TraceVerifier.Result verify() {
+        int verified = 0;
+        int mismatches = 0;
+        List<String> examples = new ArrayList<>();
+        for (Map.Entry<Integer, CompiledConfig> entry : configs.entrySet()) {
+            activate(entry.getValue());
+            TraceVerifier.Result result = verifier.verify(entry.getKey(), Integer.MAX_VALUE);
+            verified += result.verified();
+            mismatches += result.mismatches();
+            examples.addAll(result.examples());
+        }
+        return new TraceVerifier.Result(verified, count - verified, mismatches, examples);
+    }
+
+    /**
+     * Resolves every replayable record once. A trace recorded under a single config publishes
+     * it only on the first pass, so repeated passes time the resolution path alone.
+     *
+     * @return Number of mismatching records
+     */
+    public int replay() {
+        int mismatches = 0;
+        for (Map.Entry<Integer, CompiledConfig> entry : configs.entrySet()) {
+            activate(entry.getValue());
+            mismatches += verifier.replay(entry.getKey());
+        }
+        return mismatches;
+    }
+
+    private static void activate(CompiledConfig config) {
+        if (ConfigManager.getConfig() != config) {
+            ConfigManager.publish(config);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package net.fabricmc.dakes.invoverstack.trace;
+
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.fabricmc.dakes.invoverstack.util.StackContext;
+import net.fabricmc.dakes.invoverstack.util.StackLimitTable;
+import net.fabricmc.dakes.invoverstack.util.TransferMath;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.registry.Registries;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Checks recorded transfer decisions against the live limit resolution.
+ * <p>
+ * Each record carries its decision inputs (item, target inventory kind, config generation)
+ * next to the limit and amount the call site used. For records taken under the given config
+ * generation, the limit is resolved again through {@link StackContext#getEffectiveMaxStackSize}
+ * for an inventory of the recorded kind, using the active config snapshot, and the amount and
+ * resulting count are recomputed from it. A mismatch means a call site used a limit, or moved
+ * an amount, that the limit resolution does not agree with, e.g. a stale cache or a path that
+ * bypasses the limits.
+ * </p>
+ * <p>
+ * Records from other config generations, targets with a custom {@code InventoryPolicy}, unknown
+ * items and items with component rules (their limit depends on the stack, which is not recorded)
+ * are skipped. Used in game by {@code /invoverstack trace verify} and offline by {@link TraceReplay}.
+ * Server thread only.
+ * </p>
+ */
+public final class TraceVerifier {
+
+    private static final int MAX_EXAMPLES = 5;
+
+    private static final int SKIPPED = 0;
+    private static final int MATCH = 1;
+    private static final int MISMATCH = 2;
+
+    /**
+     * @param verified   Records checked
+     * @param skipped    Records that could not be checked
+     * @param mismatches Checked records that disagree with the limit resolution
+     * @param examples   The first few mismatching records, human readable
+     */
+    public record Result(int verified, int skipped, int mismatches, List<String> examples) {
+    }
+
+    private final int[] records;
+    private final int count;
+    // Count 1 stack of each record's item, null if the item is unknown
+    private final ItemStack[] stacks;
+    // Stands in for the recorded container; only its (default) policy matters
+    private final Inventory container = new SimpleInventory(1);
+
+    /**
+     * @param records Records, {@link TraceFormat#RECORD_INTS} ints each
+     * @param items   Resolves a recorded raw item id, null if unknown
+     */
+    public TraceVerifier(int[] records, IntFunction<Item> items) {
+        this.records = records;
+        this.count = records.length / TraceFormat.RECORD_INTS;
+        this.stacks = new ItemStack[count];
+
+        Map<Integer, ItemStack> byItem = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            int rawId = records[i * TraceFormat.RECORD_INTS + TraceFormat.F_ITEM];
+            ItemStack stack = byItem.computeIfAbsent(rawId, id -> {
+                Item item = id >= 0 ? items.apply(id) : null;
+                return item == null || item == Items.AIR ? ItemStack.EMPTY : new ItemStack(item);
+            });
+            stacks[i] = stack.isEmpty() ? null : stack;
+        }
+    }
+
+    /**
+     * Verifies the records of the active config generation.
+     *
+     * @param records Records as returned by {@link TransferTrace#snapshot()}
+     * @return The verification result
+     */
+    public static Result verify(int[] records) {
+        TraceVerifier verifier = new TraceVerifier(records,
+                rawId -> rawId < Registries.ITEM.size() ? Registries.ITEM.get(rawId) : null);
+        return verifier.verify((int) ConfigManager.getConfig().generation, MAX_EXAMPLES);
+    }
+
+    /**
+     * Verifies the records taken under a generation against the active config snapshot, which
+     * must hold that generation's config.
+     *
+     * @param generation  Recorded generation to check
+     * @param maxExamples Number of mismatching records to describe
+     * @return The verification result
+     */
+    public Result verify(int generation, int maxExamples) {
+        StackLimitTable table = ConfigManager.getConfig().getLimitTable();
+        int verified = 0;
+        int skipped = 0;
+        int mismatches = 0;
+        List<String> examples = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            int outcome = check(i, generation, table);
+            if (outcome == SKIPPED) {
+                skipped++;
+                continue;
+            }
+            verified++;
+            if (outcome == MISMATCH && mismatches++ < maxExamples) {
+                examples.add(describe(i));
+            }
+        }
+        return new Result(verified, skipped, mismatches, examples);
+    }
+
+    /**
+     * Resolves every record of a generation once, without building a result.
+     *
+     * @param generation Recorded generation to check
+     * @return Number of mismatching records
+     */
+    public int replay(int generation) {
+        StackLimitTable table = ConfigManager.getConfig().getLimitTable();
+        int mismatches = 0;
+        for (int i = 0; i < count; i++) {
+            if (check(i, generation, table) == MISMATCH) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * @return Number of records taken under the generation
+     */
+    public int countGeneration(int generation) {
+        int matching = 0;
+        for (int i = 0; i < count; i++) {
+            if (records[i * TraceFormat.RECORD_INTS + TraceFormat.F_GENERATION] == generation) {
+                matching++;
+            }
+        }
+        return matching;
+    }
+
+    private int check(int index, int generation, StackLimitTable table) {
+        int base = index * TraceFormat.RECORD_INTS;
+        int header = records[base + TraceFormat.F_HEADER];
+        int kind = TraceFormat.inventoryKind(header);
+        ItemStack stack = stacks[index];
+        if (records[base + TraceFormat.F_GENERATION] != generation || kind == TraceFormat.KIND_CUSTOM || stack == null
+                || StackLimitTable.hasComponentRules(table.get(stack.getItem()))) {
+            return SKIPPED;
+        }
+
+        // A null inventory resolves like a player inventory
+        int limit = StackContext.getEffectiveMaxStackSize(stack, kind == TraceFormat.KIND_PLAYER ? null : container);
+        int before = records[base + TraceFormat.F_BEFORE];
+        int expected = TransferMath.transferAmount(records[base + TraceFormat.F_OFFERED], before, limit);
+        if (TraceFormat.source(header) == TraceFormat.SOURCE_HOPPER_LITHIUM_SINGLE) {
+            // Lithium moves one item; a slot without room under the limit is overfilled
+            expected = Math.min(expected, 1);
+        }
+
+        return records[base + TraceFormat.F_LIMIT] == limit
+                && records[base + TraceFormat.F_AMOUNT] == expected
+                && records[base + TraceFormat.F_AFTER] == before + expected ? MATCH : MISMATCH;
+    }
+
+    private String describe(int index) {
+        ItemStack stack = stacks[index];
+        String name = stack != null ? Registries.ITEM.getId(stack.getItem()).toString()
+                : String.valueOf(records[index * TraceFormat.RECORD_INTS + TraceFormat.F_ITEM]);
+        return TraceFormat.describe(records, index, name);
+    }
+}
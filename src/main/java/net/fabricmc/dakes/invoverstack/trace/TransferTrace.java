@@ -0,0 +1,212 @@
+package net.fabricmc.dakes.invoverstack.trace;
+
+import net.fabricmc.dakes.invoverstack.InvOverstackMod;
+import net.fabricmc.dakes.invoverstack.api.InventoryPolicy;
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.fabricmc.dakes.invoverstack.util.IndexedItem;
+import net.fabricmc.dakes.invoverstack.util.InventoryPolicies;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Low-overhead ring buffer recording every transfer decision made by the hopper mixins and
+ * {@code PlayerInventoryMixin.addStack}.
+ * <p>
+ * Records are fixed-width primitive rows in one preallocated {@code int[]} (layout in
+ * {@link TraceFormat}); recording claims a row with a single atomic increment and allocates
+ * nothing. When the buffer is full the oldest records are overwritten. Call sites check
+ * {@link #isRecording()} first, so the cost when tracing is off is one volatile read.
+ * </p>
+ * <p>
+ * Controlled with {@code /invoverstack trace start|stop|dump|verify}. {@code verify} checks the
+ * buffered records against the live limit resolution, see {@link TraceVerifier}. Dumps are
+ * written off-thread together with the config of every generation published while recording,
+ * so {@link TraceReplay} can check and time them offline against the same configs.
+ * </p>
+ */
+public final class TransferTrace {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    // 1M records = 36 MiB, allocated on the server thread when recording starts
+    public static final int MAX_CAPACITY = 1 << 20;
+
+    private static volatile boolean recording = false;
+    private static volatile int[] buffer = new int[0];
+    private static final AtomicLong written = new AtomicLong();
+    // Config JSON of every generation published while recording, by recorded generation
+    private static final Map<Integer, String> configs = new HashMap<>();
+
+    private TransferTrace() {
+    }
+
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Starts recording into an empty buffer. The buffer is only (re)allocated here, and
+     * reused when the capacity did not change.
+     *
+     * @param capacity Number of records kept, rounded up to a power of two and capped at {@link #MAX_CAPACITY}
+     */
+    public static synchronized void start(int capacity) {
+        int records = Math.max(Integer.highestOneBit(Math.min(Math.max(capacity, 1), MAX_CAPACITY) - 1) << 1, 1);
+        if (buffer.length != records * TraceFormat.RECORD_INTS) {
+            buffer = new int[records * TraceFormat.RECORD_INTS];
+        }
+        written.set(0);
+        configs.clear();
+        putConfig(ConfigManager.getConfig());
+        recording = true;
+    }
+
+    /**
+     * Called by {@link ConfigManager#publish} for every new snapshot.
+     */
+    public static synchronized void onConfigPublished(CompiledConfig snapshot) {
+        if (recording) {
+            putConfig(snapshot);
+        }
+    }
+
+    private static void putConfig(CompiledConfig snapshot) {
+        configs.put((int) snapshot.generation, ConfigManager.toJson(snapshot.toModConfig()));
+    }
+
+    public static synchronized void stop() {
+        recording = false;
+    }
+
+    /**
+     * @return Number of records currently held in the buffer
+     */
+    public static int size() {
+        return (int) Math.min(written.get(), buffer.length / TraceFormat.RECORD_INTS);
+    }
+
+    /**
+     * @param inventory The target inventory
+     * @return Its {@code TraceFormat.KIND_*}
+     */
+    public static int kindOf(Inventory inventory) {
+        InventoryPolicy policy = InventoryPolicies.get(inventory);
+        if (policy == InventoryPolicy.PLAYER) {
+            return TraceFormat.KIND_PLAYER;
+        }
+        return policy == InventoryPolicy.CONTAINER ? TraceFormat.KIND_CONTAINER : TraceFormat.KIND_CUSTOM;
+    }
+
+    /**
+     * Records one transfer decision.
+     *
+     * @param source        One of the {@code TraceFormat.SOURCE_*} constants
+     * @param kind          Target inventory kind, see {@link #kindOf(Inventory)}
+     * @param item          The item being moved
+     * @param slot          Target slot
+     * @param countBefore   Target slot count before the transfer
+     * @param countAfter    Target slot count after the transfer
+     * @param amount        Items moved
+     * @param limit         Max stack size of the target slot
+     * @param offered       Items available to move
+     */
+    public static void record(int source, int kind, Item item, int slot,
+                              int countBefore, int countAfter, int amount, int limit, int offered) {
+        int[] buf = buffer;
+        int records = buf.length / TraceFormat.RECORD_INTS;
+        if (records == 0) {
+            return;
+        }
+
+        int base = (int) (written.getAndIncrement() & (records - 1)) * TraceFormat.RECORD_INTS;
+        buf[base + TraceFormat.F_HEADER] = TraceFormat.header(source, kind);
+        buf[base + TraceFormat.F_ITEM] = ((IndexedItem) item).invoverstack$getLimitIndex();
+        buf[base + TraceFormat.F_SLOT] = slot;
+        buf[base + TraceFormat.F_BEFORE] = countBefore;
+        buf[base + TraceFormat.F_AFTER] = countAfter;
+        buf[base + TraceFormat.F_AMOUNT] = amount;
+        buf[base + TraceFormat.F_LIMIT] = limit;
+        buf[base + TraceFormat.F_OFFERED] = offered;
+        buf[base + TraceFormat.F_GENERATION] = (int) ConfigManager.getConfig().generation;
+    }
+
+    /**
+     * @return Copy of the buffered records, oldest first
+     */
+    public static synchronized int[] snapshot() {
+        int[] buf = buffer;
+        int records = buf.length / TraceFormat.RECORD_INTS;
+        long total = written.get();
+        int count = (int) Math.min(total, records);
+        int[] snapshot = new int[count * TraceFormat.RECORD_INTS];
+
+        long first = total - count;
+        for (int i = 0; i < count; i++) {
+            int from = (int) ((first + i) & (records - 1)) * TraceFormat.RECORD_INTS;
+            System.arraycopy(buf, from, snapshot, i * TraceFormat.RECORD_INTS, TraceFormat.RECORD_INTS);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Copies the buffered records in recording order and writes them to a file in the
+     * background.
+     *
+     * @param directory Directory to write the trace into
+     * @return Future completing with the written file
+     */
+    public static synchronized CompletableFuture<Path> dump(Path directory) {
+        int[] snapshot = snapshot();
+        int records = snapshot.length / TraceFormat.RECORD_INTS;
+        Map<Integer, String> recordedConfigs = new HashMap<>(configs);
+
+        Path file = directory.resolve("trace-" + System.currentTimeMillis() + ".bin");
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                write(file, snapshot, records, recordedConfigs);
+                InvOverstackMod.LOGGER.info("Wrote {} transfer trace records to {}", records, file);
+                return file;
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to write transfer trace to " + file, e);
+            }
+        });
+    }
+
+    private static void write(Path file, int[] records, int count, Map<Integer, String> recordedConfigs) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            TraceFormat.writeHeader(out, count);
+            for (int value : records) {
+                out.writeInt(value);
+            }
+
+            // Raw id -> item id table, so the trace can be read without a running game
+            out.writeInt(Registries.ITEM.size());
+            for (Item item : Registries.ITEM) {
+                out.writeInt(((IndexedItem) item).invoverstack$getLimitIndex());
+                out.writeUTF(Registries.ITEM.getId(item).toString());
+            }
+
+            // Generation -> config JSON, so the limits can be resolved again under the same config
+            out.writeInt(recordedConfigs.size());
+            for (Map.Entry<Integer, String> entry : recordedConfigs.entrySet()) {
+                byte[] json = entry.getValue().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(entry.getKey());
+                out.writeInt(json.length);
+                out.write(json);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+
+/**
+ * Duck interface implemented on {@link net.minecraft.block.entity.HopperBlockEntity} by
+ * {@code HopperBulkTransferMixin}: the hopper's bulkHopperBudgetPerSecond budget.
+ *
+ * @see HopperBudget
+ */
+public interface BulkHopper {
+
+    /**
+     * @param config    The active config snapshot
+     * @param available Items in the source stack
+     * @return Items this hopper may offer in one transfer, at least 1
+     */
+    int invoverstack$allowance(CompiledConfig config, int available);
+
+    /**
+     * Charges moved items against this hopper's budget.
+     */
+    void invoverstack$spend(int moved);
+}
@@ -0,0 +1,132 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.minecraft.entity.ItemEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.random.Random;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact drop mode (compactDrops) for players dying with oversized stacks.
+ * <p>
+ * Equal stacks of the main inventory are pooled and dropped in chunks of the item's player
+ * inventory limit, so a full inventory of one item becomes at most 36 entities and mixed
+ * partial stacks collapse further. Each entity carries at most what one slot can hold, so
+ * picking it up puts back exactly the stored counts.
+ * </p>
+ * <p>
+ * With dropSpawnBudgetPerTick set, the entities are released over several ticks instead of all
+ * at once. Pending drops are flushed when the server stops, so nothing is lost.
+ * Dropping a stack with Ctrl+Q or from a screen already produces a single entity and is not
+ * affected.
+ * </p>
+ */
+public final class CompactDrops {
+
+    private record PendingDrop(ServerWorld world, ItemEntity entity) {
+    }
+
+    // Server thread only
+    private static final ArrayDeque<PendingDrop> pending = new ArrayDeque<>();
+
+    private CompactDrops() {
+    }
+
+    /**
+     * Drops and clears the main inventory of a dying player.
+     *
+     * @param inventory The player's inventory
+     */
+    public static void dropMain(PlayerInventory inventory) {
+        PlayerEntity player = inventory.player;
+        if (!(player.getEntityWorld() instanceof ServerWorld world)) {
+            return;
+        }
+
+        List<ItemStack> main = inventory.getMainStacks();
+        List<ItemStack> groups = new ArrayList<>();
+        for (int slot = 0; slot < main.size(); slot++) {
+            ItemStack stack = main.get(slot);
+            if (stack.isEmpty()) {
+                continue;
+            }
+
+            ItemStack group = null;
+            for (ItemStack candidate : groups) {
+                if (ItemStack.areItemsAndComponentsEqual(candidate, stack)) {
+                    group = candidate;
+                    break;
+                }
+            }
+            if (group != null) {
+                group.increment(stack.getCount());
+            } else {
+                groups.add(stack.copy());
+            }
+            inventory.setStack(slot, ItemStack.EMPTY);
+        }
+
+        int budget = ConfigManager.getConfig().dropSpawnBudgetPerTick;
+        for (ItemStack group : groups) {
+            int chunk = StackContext.getEffectiveMaxStackSize(group, inventory);
+            while (!group.isEmpty()) {
+                ItemEntity entity = createDrop(world, player, group.split(chunk));
+                if (budget <= 0) {
+                    world.spawnEntity(entity);
+                } else {
+                    pending.add(new PendingDrop(world, entity));
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases pending drops within the per-tick budget. Called at the end of every server tick.
+     */
+    public static void tick(MinecraftServer server) {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        int budget = ConfigManager.getConfig().dropSpawnBudgetPerTick;
+        if (budget <= 0) {
+            budget = Integer.MAX_VALUE;
+        }
+        for (int i = 0; i < budget && !pending.isEmpty(); i++) {
+            PendingDrop drop = pending.poll();
+            drop.world().spawnEntity(drop.entity());
+        }
+    }
+
+    /**
+     * Spawns every pending drop. Called when the server is stopping.
+     */
+    public static void flush() {
+        while (!pending.isEmpty()) {
+            PendingDrop drop = pending.poll();
+            drop.world().spawnEntity(drop.entity());
+        }
+    }
+
+    /**
+     * Same position, pickup delay and scatter as vanilla's randomly thrown death drops.
+     */
+    private static ItemEntity createDrop(ServerWorld world, PlayerEntity player, ItemStack stack) {
+        ItemEntity entity = new ItemEntity(world, player.getX(), player.getEyeY() - 0.3F, player.getZ(), stack);
+        entity.setPickupDelay(40);
+
+        Random random = player.getRandom();
+        float speed = random.nextFloat() * 0.5F;
+        float angle = random.nextFloat() * (float) (Math.PI * 2);
+        entity.setVelocity(-MathHelper.sin(angle) * speed, 0.2F, MathHelper.cos(angle) * speed);
+        return entity;
+    }
+}
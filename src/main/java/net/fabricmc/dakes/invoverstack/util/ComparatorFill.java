@@ -0,0 +1,92 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.fabricmc.dakes.invoverstack.mixin.DoubleInventoryAccessor;
+import net.minecraft.inventory.DoubleInventory;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.MathHelper;
+
+/**
+ * Comparator output with fixed vanilla stack limits, tracked per container.
+ * <p>
+ * The fill of an inventory (sum of count / min(64, vanilla max) over its slots, plus the
+ * number of non-empty slots) is packed into one {@code long}. Containers
+ * ({@link ComparatorFillHolder}) maintain it incrementally in their {@link ContainerFill}, so
+ * a read costs the same however busy the container is. Other inventories (furnaces, brewing
+ * stands, minecarts, ...) are small and scanned on every read.
+ * </p>
+ * <p>
+ * Double chests are a fresh {@link DoubleInventory} on every lookup, so their fill is
+ * combined from the two tracked halves. For vanilla limits (1, 16, 64) every term is a
+ * multiple of 1/64, so the float sum is exact and does not depend on summation order.
+ * </p>
+ */
+public final class ComparatorFill {
+
+    public static final long INVALID = -1L;
+
+    private ComparatorFill() {
+    }
+
+    /**
+     * Calculates the comparator output for an inventory, see
+     * {@link net.minecraft.screen.ScreenHandler#calculateComparatorOutput(Inventory)}.
+     */
+    public static int calculateOutput(Inventory inventory) {
+        long fill;
+        if (inventory instanceof DoubleInventory) {
+            DoubleInventoryAccessor halves = (DoubleInventoryAccessor) inventory;
+            long first = tracked(halves.invoverstack$getFirst());
+            long second = tracked(halves.invoverstack$getSecond());
+            fill = first == INVALID || second == INVALID
+                    ? scan(inventory)
+                    : pack(fraction(first) + fraction(second), nonEmpty(first) + nonEmpty(second));
+        } else {
+            fill = tracked(inventory);
+            if (fill == INVALID) {
+                fill = scan(inventory);
+            }
+        }
+
+        float f = fraction(fill) / (float) inventory.size();
+        return MathHelper.floor(f * 14.0F) + (nonEmpty(fill) > 0 ? 1 : 0);
+    }
+
+    private static long tracked(Inventory inventory) {
+        if (inventory instanceof ComparatorFillHolder holder) {
+            return holder.invoverstack$getContainerFill().get(holder.invoverstack$getHeldStacks());
+        }
+        return INVALID;
+    }
+
+    private static long scan(Inventory inventory) {
+        StackLimitTable table = ConfigManager.getConfig().getLimitTable();
+        float f = 0.0F;
+        int nonEmpty = 0;
+
+        for (int slot = 0; slot < inventory.size(); slot++) {
+            ItemStack stack = inventory.getStack(slot);
+            if (!stack.isEmpty()) {
+                // Force vanilla max stack size (64) so comparators ignore modded stack sizes
+                int vanillaMax = Math.min(64, StackLimitTable.vanillaMax(table.get(stack.getItem())));
+                f += (float) stack.getCount() / (float) vanillaMax;
+                nonEmpty++;
+            }
+        }
+
+        return pack(f, nonEmpty);
+    }
+
+    static long pack(float fraction, int nonEmpty) {
+        return ((long) Float.floatToRawIntBits(fraction) << 32) | (nonEmpty & 0xFFFFFFFFL);
+    }
+
+    private static float fraction(long fill) {
+        return Float.intBitsToFloat((int) (fill >>> 32));
+    }
+
+    private static int nonEmpty(long fill) {
+        return (int) fill;
+    }
+}
@@ -0,0 +1,19 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+import net.minecraft.item.ItemStack;
+
+import java.util.List;
+
+/**
+ * Duck interface implemented on {@link net.minecraft.block.entity.LootableContainerBlockEntity}
+ * by {@code LootableContainerBlockEntityMixin}.
+ * <p>
+ * Holds the {@link ContainerFill} of the container, kept current from its slot writes.
+ * </p>
+ */
+public interface ComparatorFillHolder {
+
+    ContainerFill invoverstack$getContainerFill();
+
+    List<ItemStack> invoverstack$getHeldStacks();
+}
@@ -0,0 +1,19 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+/**
+ * Duck interface implemented on {@link net.minecraft.item.ItemStack} by {@code ItemStackMixin}.
+ * <p>
+ * Caches the limit {@link StackLimitTable#componentLimit} resolved for the stack (component
+ * rules, or the vanilla max if the stack is damageable), together with the id of the
+ * {@link StackLimitTable} it was resolved against. Cleared whenever the stack's components
+ * change.
+ * </p>
+ */
+public interface ComponentLimitCache {
+
+    int invoverstack$getComponentLimitTableId();
+
+    int invoverstack$getComponentLimit();
+
+    void invoverstack$setComponentLimit(int tableId, int limit);
+}
@@ -0,0 +1,155 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.fabricmc.dakes.invoverstack.InvOverstackMod;
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+import net.minecraft.component.ComponentType;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled {@code componentRules}: per-item limits that depend on the stack's data components.
+ * <p>
+ * A rule key is an item id followed by conditions in brackets, each a component id that must be
+ * present, or absent when prefixed with {@code !}:
+ * {@code "minecraft:potion[minecraft:custom_data]": 1} gives quest potions a limit of 1 while
+ * plain potions keep the item limit. If several rules of an item match, the one with the most
+ * conditions wins; stacks matching none keep the item's limit.
+ * </p>
+ * <p>
+ * Only items with rules carry {@link StackLimitTable#FLAG_COMPONENT_RULES}. For flagged items,
+ * the resolved limit is cached on the stack (see {@link ComponentLimitCache}) until its
+ * components change or a new table is built.
+ * Blacklisted and damageable items ignore component rules.
+ * </p>
+ */
+public final class ComponentRules {
+
+    private static final ComponentRules NONE = new ComponentRules(new Int2ObjectOpenHashMap<>());
+
+    private record Rule(String key, ComponentType<?>[] present, ComponentType<?>[] absent, int limit) {
+
+        boolean matches(ItemStack stack) {
+            for (ComponentType<?> type : present) {
+                if (!stack.contains(type)) {
+                    return false;
+                }
+            }
+            for (ComponentType<?> type : absent) {
+                if (stack.contains(type)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int conditions() {
+            return present.length + absent.length;
+        }
+    }
+
+    // Raw item id -> rules, most specific first
+    private final Int2ObjectOpenHashMap<Rule[]> rulesByItem;
+
+    private ComponentRules(Int2ObjectOpenHashMap<Rule[]> rulesByItem) {
+        this.rulesByItem = rulesByItem;
+    }
+
+    /**
+     * Resolves the rules of a snapshot against the item and component registries.
+     * Invalid rules are logged and skipped.
+     *
+     * @param config The snapshot
+     * @return The resolved rules
+     */
+    public static ComponentRules resolve(CompiledConfig config) {
+        if (config.componentRules.isEmpty()) {
+            return NONE;
+        }
+
+        Int2ObjectOpenHashMap<List<Rule>> collected = new Int2ObjectOpenHashMap<>();
+        for (Map.Entry<String, Integer> entry : config.componentRules.entrySet()) {
+            String key = entry.getKey();
+            int open = key.indexOf('[');
+            if (open <= 0 || !key.endsWith("]")) {
+                InvOverstackMod.LOGGER.warn("[ComponentRules] Ignoring rule '{}': expected item[component,...]", key);
+                continue;
+            }
+
+            Identifier itemId = Identifier.tryParse(key.substring(0, open));
+            if (itemId == null || !Registries.ITEM.containsId(itemId)) {
+                InvOverstackMod.LOGGER.warn("[ComponentRules] Ignoring rule '{}': unknown item", key);
+                continue;
+            }
+
+            List<ComponentType<?>> present = new ArrayList<>();
+            List<ComponentType<?>> absent = new ArrayList<>();
+            boolean valid = true;
+            for (String condition : key.substring(open + 1, key.length() - 1).split(",")) {
+                condition = condition.trim();
+                boolean negated = condition.startsWith("!");
+                Identifier componentId = Identifier.tryParse(negated ? condition.substring(1) : condition);
+                ComponentType<?> type = componentId == null ? null : Registries.DATA_COMPONENT_TYPE.get(componentId);
+                if (type == null) {
+                    InvOverstackMod.LOGGER.warn("[ComponentRules] Ignoring rule '{}': unknown component '{}'", key, condition);
+                    valid = false;
+                    break;
+                }
+                (negated ? absent : present).add(type);
+            }
+            if (!valid) {
+                continue;
+            }
+
+            Item item = Registries.ITEM.get(itemId);
+            Rule rule = new Rule(key, present.toArray(new ComponentType<?>[0]), absent.toArray(new ComponentType<?>[0]),
+                    Math.min(entry.getValue(), config.maxAllowedStackSize));
+            collected.computeIfAbsent(Registries.ITEM.getRawId(item), id -> new ArrayList<>()).add(rule);
+        }
+
+        Int2ObjectOpenHashMap<Rule[]> rulesByItem = new Int2ObjectOpenHashMap<>(collected.size());
+        Comparator<Rule> order = Comparator.comparingInt(Rule::conditions).reversed().thenComparing(Rule::key);
+        collected.forEach((rawId, rules) -> {
+            Rule[] sorted = rules.toArray(new Rule[0]);
+            Arrays.sort(sorted, order);
+            rulesByItem.put((int) rawId, sorted);
+        });
+        return new ComponentRules(rulesByItem);
+    }
+
+    /**
+     * @param rawId The raw item id
+     * @return true if the item has component rules
+     */
+    public boolean hasRules(int rawId) {
+        return rulesByItem.containsKey(rawId);
+    }
+
+    /**
+     * Evaluates the rules of the stack's item. Called once per stack and table, the result is
+     * cached on the stack.
+     *
+     * @param stack     The stack
+     * @param itemLimit The item's limit, used if no rule matches
+     * @return The limit for this stack
+     */
+    int evaluate(ItemStack stack, int itemLimit) {
+        Rule[] rules = rulesByItem.get(Registries.ITEM.getRawId(stack.getItem()));
+        if (rules != null) {
+            for (Rule rule : rules) {
+                if (rule.matches(stack)) {
+                    return rule.limit();
+                }
+            }
+        }
+        return itemLimit;
+    }
+}
@@ -0,0 +1,168 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.minecraft.item.ItemStack;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Incrementally maintained comparator fill of one container block entity.
+ * <p>
+ * Each slot contributes count / min(64, vanilla max). The fill keeps these terms in units of
+ * 1/64 together with the number of non-empty slots, and patches both by the delta of a single
+ * slot whenever that slot is written ({@code setStack}, {@code removeStack}) or the count of
+ * the stack in it changes (see {@link TrackedStack}). Reading the fill is then O(1), however
+ * often the container changes.
+ * </p>
+ * <p>
+ * As a fallback for writes that bypass the slot methods (e.g. contents copied in from item
+ * components), a {@code markDirty} that was not preceded by any tracked change drops the
+ * state, and the next read rebuilds it. The same happens when the slot list is replaced,
+ * as loading from disk does. Limits that do not divide 64 cannot be expressed in units;
+ * while such a stack is present {@link #get(List)} reports {@link ComparatorFill#INVALID}
+ * and the caller scans instead.
+ * </p>
+ */
+public final class ContainerFill implements SlotTracker {
+
+    private static final int EMPTY = -2;
+    private static final int INEXACT = -1;
+    // Larger terms are tracked as inexact, so the unit sum always converts to float exactly
+    private static final int MAX_UNITS = 1 << 18;
+
+    // Per slot: the stack seen there and its term in units of 1/64 (or EMPTY / INEXACT)
+    private ItemStack[] slotStacks;
+    private int[] slotUnits;
+    // Slot list the state was built from, null = not built
+    private List<ItemStack> stacks;
+
+    private long units;
+    private int nonEmpty;
+    private int inexact;
+
+    // Set by tracked changes, cleared by markDirty
+    private boolean changed;
+
+    /**
+     * @param stacks The container's current slot list
+     * @return The packed fill, see {@link ComparatorFill}, or {@link ComparatorFill#INVALID}
+     * if it cannot be tracked exactly right now
+     */
+    public long get(List<ItemStack> stacks) {
+        if (this.stacks != stacks || slotStacks.length != stacks.size()) {
+            rebuild(stacks);
+        }
+        if (inexact > 0 || units >= 1 << 24) {
+            return ComparatorFill.INVALID;
+        }
+        return ComparatorFill.pack(units / 64.0F, nonEmpty);
+    }
+
+    /**
+     * Called after a slot has been assigned a (possibly identical) stack, or split.
+     *
+     * @param stacks The container's current slot list
+     * @param slot   The slot index
+     */
+    public void onSlotChanged(List<ItemStack> stacks, int slot) {
+        if (this.stacks != stacks || slot < 0 || slot >= slotStacks.length) {
+            return; // Not built, or built from a replaced list; the next read rebuilds
+        }
+
+        ItemStack previous = slotStacks[slot];
+        ItemStack stack = stacks.get(slot);
+        if (previous != null && previous != stack) {
+            TrackedStack tracked = (TrackedStack) (Object) previous;
+            if (tracked.invoverstack$getTracker() == this && tracked.invoverstack$getTrackedSlot() == slot) {
+                tracked.invoverstack$track(null, -1);
+            }
+        }
+
+        update(slot, stack);
+    }
+
+    @Override
+    public void onCountChanged(int slot, ItemStack stack) {
+        if (stacks == null || slot < 0 || slot >= slotStacks.length || slotStacks[slot] != stack) {
+            return; // Stale link, the stack is no longer in that slot
+        }
+        update(slot, stack);
+    }
+
+    /**
+     * Called before a slot write that marks the block entity dirty before it can be reported.
+     */
+    public void expectChange() {
+        changed = true;
+    }
+
+    /**
+     * Called when the block entity is marked dirty.
+     */
+    public void onMarkDirty() {
+        if (!changed) {
+            invalidate();
+        }
+        changed = false;
+    }
+
+    /**
+     * Drops all state; the next read rebuilds it.
+     */
+    public void invalidate() {
+        stacks = null;
+    }
+
+    private void rebuild(List<ItemStack> stacks) {
+        int size = stacks.size();
+        this.stacks = stacks;
+        slotStacks = new ItemStack[size];
+        slotUnits = new int[size];
+        Arrays.fill(slotUnits, EMPTY);
+        units = 0;
+        nonEmpty = 0;
+        inexact = 0;
+
+        for (int slot = 0; slot < size; slot++) {
+            update(slot, stacks.get(slot));
+        }
+    }
+
+    private void update(int slot, ItemStack stack) {
+        changed = true;
+
+        int previous = slotUnits[slot];
+        if (previous != EMPTY) {
+            if (previous == INEXACT) {
+                inexact--;
+            } else {
+                units -= previous;
+            }
+            nonEmpty--;
+        }
+
+        slotStacks[slot] = stack;
+        if (stack.isEmpty()) {
+            slotUnits[slot] = EMPTY;
+            return;
+        }
+
+        ((TrackedStack) (Object) stack).invoverstack$track(this, slot);
+
+        // Force vanilla max stack size (64) so comparators ignore modded stack sizes
+        int vanillaMax = Math.min(64, StackLimitTable.vanillaMax(ConfigManager.getConfig().getLimitTable().get(stack.getItem())));
+        int term = INEXACT;
+        if (64 % vanillaMax == 0 && stack.getCount() <= MAX_UNITS / 64) {
+            term = stack.getCount() * (64 / vanillaMax);
+        }
+
+        slotUnits[slot] = term;
+        if (term == INEXACT) {
+            inexact++;
+        } else {
+            units += term;
+        }
+        nonEmpty++;
+    }
+}
@@ -0,0 +1,17 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+import net.fabricmc.dakes.invoverstack.network.CountDeltaSync;
+
+/**
+ * Duck interface implemented on {@link net.minecraft.screen.ScreenHandler} by {@code ScreenHandlerMixin}.
+ * <p>
+ * Holds the {@link CountDeltaSync} of a handler that is synced to a player, or null for
+ * handlers that are not (client side, or not yet opened).
+ * </p>
+ */
+public interface CountDeltaHolder {
+
+    CountDeltaSync invoverstack$getCountDeltaSync();
+
+    void invoverstack$setCountDeltaSync(CountDeltaSync sync);
+}
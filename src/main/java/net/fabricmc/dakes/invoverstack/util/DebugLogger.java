@@ -1,38 +1,46 @@
 package net.fabricmc.dakes.invoverstack.util;
 
 import net.fabricmc.dakes.invoverstack.InvOverstackMod;
-import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
 import net.fabricmc.loader.api.FabricLoader;
 
-import java.util.Collections;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
 
 /**
  * Debug logging utility that logs in development environments OR when debugMode is enabled in config.
  * Set debugMode=true in config/invoverstack.json to enable debug logs in production.
- * Automatically suppresses duplicate consecutive log messages to reduce spam.
+ * Automatically suppresses duplicate recent log messages to reduce spam.
+ * <p>
+ * The disabled path allocates nothing: the enabled flag is a cached volatile updated whenever a
+ * config snapshot is published, and the primitive-arity overloads avoid varargs arrays and boxing.
+ * For messages with more arguments, guard the call with {@link #isEnabled()} or pass a
+ * {@link Supplier}.
+ * </p>
  */
 public class DebugLogger {
     private static final boolean IS_DEV = FabricLoader.getInstance().isDevelopmentEnvironment();
 
-    // Track recent messages to avoid spam (max 100 unique messages)
-    private static final Set<String> recentMessages = Collections.synchronizedSet(new LinkedHashSet<>());
-    private static final int MAX_CACHE_SIZE = 100;
+    private static volatile boolean enabled = IS_DEV;
+
+    // Lock-free, lossy duplicate filter: each message hashes to one of 128 entries (power of two)
+    private static final int CACHE_SIZE = 128;
+    private static final AtomicReferenceArray<String> recentMessages = new AtomicReferenceArray<>(CACHE_SIZE);
 
     /**
      * Check if debug logging is enabled (dev mode OR config flag).
      * @return true if debug logging should be enabled
      */
-    private static boolean isDebugEnabled() {
-        if (IS_DEV) {
-            return true;
-        }
-        try {
-            return ConfigManager.getConfig() != null && ConfigManager.getConfig().debugMode;
-        } catch (Exception e) {
-            return false;
-        }
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Updates the cached enabled flag. Called whenever a config snapshot is published.
+     * @param config the newly published config
+     */
+    public static void onConfigPublished(CompiledConfig config) {
+        enabled = IS_DEV || config.debugMode;
     }
 
     /**
@@ -40,43 +48,75 @@ public class DebugLogger {
      * @param message the message to log
      */
     public static void debug(String message) {
-        if (isDebugEnabled()) {
-            synchronized (recentMessages) {
-                if (recentMessages.size() >= MAX_CACHE_SIZE) {
-                    recentMessages.clear();
-                }
-                if (recentMessages.add(message)) {
-                    InvOverstackMod.LOGGER.info("[DEBUG] " + message);
-                }
-            }
+        if (enabled) {
+            log(message);
+        }
+    }
+
+    /**
+     * Log a lazily built debug message if debug is enabled and message is not a duplicate.
+     * @param message supplies the message, only invoked when debug is enabled
+     */
+    public static void debug(Supplier<String> message) {
+        if (enabled) {
+            log(message.get());
+        }
+    }
+
+    public static void debug(String format, int arg) {
+        if (enabled) {
+            log(String.format(format, arg));
+        }
+    }
+
+    public static void debug(String format, int arg1, int arg2) {
+        if (enabled) {
+            log(String.format(format, arg1, arg2));
+        }
+    }
+
+    public static void debug(String format, boolean arg1, int arg2) {
+        if (enabled) {
+            log(String.format(format, arg1, arg2));
+        }
+    }
+
+    public static void debug(String format, Object arg) {
+        if (enabled) {
+            log(String.format(format, arg));
         }
     }
 
     /**
      * Log debug message with formatting if debug is enabled and message is not a duplicate.
+     * Allocates the varargs array even when disabled; prefer the fixed-arity overloads or
+     * guard with {@link #isEnabled()} on hot paths.
      * @param format the format string
      * @param args the arguments
      */
     public static void debug(String format, Object... args) {
-        if (isDebugEnabled()) {
-            String message = String.format(format, args);
-            synchronized (recentMessages) {
-                if (recentMessages.size() >= MAX_CACHE_SIZE) {
-                    recentMessages.clear();
-                }
-                if (recentMessages.add(message)) {
-                    InvOverstackMod.LOGGER.info("[DEBUG] " + message);
-                }
-            }
+        if (enabled) {
+            log(String.format(format, args));
         }
     }
 
+    private static void log(String message) {
+        int slot = message.hashCode() & (CACHE_SIZE - 1);
+        if (message.equals(recentMessages.get(slot))) {
+            return;
+        }
+        recentMessages.set(slot, message);
+        InvOverstackMod.LOGGER.info("[DEBUG] {}", message);
+    }
+
     /**
      * Clear the duplicate message cache.
      * Useful when starting a new test scenario.
      */
     public static void clearCache() {
-        recentMessages.clear();
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            recentMessages.set(i, null);
+        }
     }
 
     /**
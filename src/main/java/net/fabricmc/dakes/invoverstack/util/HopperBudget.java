@@ -0,0 +1,47 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Tracks which hopper block entity is moving items, for the bulk mode budget.
+ * <p>
+ * Lithium moves items in its own {@code HopperHelper}, which is not told which hopper is
+ * moving. {@code HopperBulkTransferMixin} publishes the hopper for the duration of its
+ * {@code insertAndExtract}, so {@code HopperHelperMixin} charges the same budget as the vanilla
+ * path. Hopper minecarts never run {@code insertAndExtract} and have no budget. Server thread
+ * only.
+ * </p>
+ */
+public final class HopperBudget {
+
+    @Nullable
+    private static BulkHopper active;
+
+    private HopperBudget() {
+    }
+
+    /**
+     * @return The hopper whose transfer is running, or null outside of one
+     */
+    @Nullable
+    public static BulkHopper active() {
+        return active;
+    }
+
+    public static void setActive(@Nullable BulkHopper hopper) {
+        active = hopper;
+    }
+
+    /**
+     * @param hopper    The moving hopper, or null if it has no budget
+     * @param config    The active config snapshot
+     * @param available Items in the source stack
+     * @return Items the hopper may offer in one transfer, at least 1 if any are available
+     */
+    public static int allowance(@Nullable BulkHopper hopper, CompiledConfig config, int available) {
+        return hopper != null
+                ? hopper.invoverstack$allowance(config, available)
+                : Math.min(available, config.bulkHopperItemsPerTransfer);
+    }
+}
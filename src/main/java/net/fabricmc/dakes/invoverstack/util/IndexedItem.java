@@ -0,0 +1,17 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+/**
+ * Duck interface implemented on {@link net.minecraft.item.Item} by {@code ItemMixin}.
+ * <p>
+ * Caches the item's raw registry id directly on the item so that {@link StackLimitTable}
+ * lookups do not have to go through the registry's id map.
+ * The index is (re)assigned every time a limit table is built; {@code -1} means the item
+ * was not present in the registry when the current table was built.
+ * </p>
+ */
+public interface IndexedItem {
+
+    int invoverstack$getLimitIndex();
+
+    void invoverstack$setLimitIndex(int index);
+}
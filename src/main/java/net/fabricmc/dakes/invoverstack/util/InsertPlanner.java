@@ -0,0 +1,215 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.screen.slot.Slot;
+
+import java.util.List;
+
+/**
+ * Single-pass replacement for {@code ScreenHandler.insertItem} when the source stack is
+ * oversized, i.e. holds more than its vanilla max.
+ * <p>
+ * Vanilla merges into partial stacks and then fills at most one empty slot per call, so
+ * shift-clicking a 4096 stack into a chest repeats quick-move (and the full slot scan) once
+ * per 64 items. The planner instead walks the target range once to merge into partial stacks,
+ * then once more to fill as many empty slots as needed. Each slot is capped at its own limit
+ * ({@code Slot.getMaxItemCount}), which is the vanilla max for containers. The planned moves
+ * are applied in one batch afterwards.
+ * </p>
+ * <p>
+ * Inserts into the main slots of a player inventory (quick-moving out of a container) take a
+ * separate path: instead of scanning the whole range, merge targets and empty slots come from
+ * the inventory's {@link PlayerSlotIndex}, and only those candidates are compared. The stack is
+ * poured into as few slots as the configured limit allows, in vanilla's visiting order.
+ * </p>
+ */
+public final class InsertPlanner {
+
+    private InsertPlanner() {
+    }
+
+    /**
+     * @param stack The stack to check
+     * @return true if the planner should handle inserting the stack
+     */
+    public static boolean shouldPlan(ItemStack stack) {
+        return stack.getCount() > stack.getMaxCount() && stack.isStackable();
+    }
+
+    /**
+     * Same contract as {@code ScreenHandler.insertItem}: moves as much of the stack as fits
+     * into slots {@code [startIndex, endIndex)}, decrementing the stack.
+     *
+     * @return true if anything was moved
+     */
+    public static boolean insert(List<Slot> slots, ItemStack stack, int startIndex, int endIndex, boolean fromLast) {
+        int span = endIndex - startIndex;
+        if (span <= 0 || stack.isEmpty()) {
+            return false;
+        }
+
+        // Amount planned per slot of the range, in visiting order
+        int[] plan = new int[span];
+        int remaining = stack.getCount();
+
+        // Merge into partial stacks
+        for (int n = 0; n < span && remaining > 0; n++) {
+            Slot slot = slots.get(fromLast ? endIndex - 1 - n : startIndex + n);
+            ItemStack target = slot.getStack();
+            if (target.isEmpty() || !ItemStack.areItemsAndComponentsEqual(stack, target)) {
+                continue;
+            }
+            int room = slot.getMaxItemCount(target) - target.getCount();
+            if (room > 0) {
+                int amount = Math.min(room, remaining);
+                plan[n] = amount;
+                remaining -= amount;
+            }
+        }
+
+        // Fill empty slots
+        for (int n = 0; n < span && remaining > 0; n++) {
+            Slot slot = slots.get(fromLast ? endIndex - 1 - n : startIndex + n);
+            if (!slot.getStack().isEmpty() || !slot.canInsert(stack)) {
+                continue;
+            }
+            int amount = Math.min(slot.getMaxItemCount(stack), remaining);
+            if (amount > 0) {
+                plan[n] = amount;
+                remaining -= amount;
+            }
+        }
+
+        if (remaining == stack.getCount()) {
+            return false;
+        }
+
+        boolean moved = false;
+        for (int n = 0; n < span && !stack.isEmpty(); n++) {
+            int amount = plan[n];
+            if (amount == 0) {
+                continue;
+            }
+            Slot slot = slots.get(fromLast ? endIndex - 1 - n : startIndex + n);
+            ItemStack target = slot.getStack();
+            if (target.isEmpty()) {
+                slot.setStack(stack.split(amount));
+            } else {
+                // Re-checked in case two slots of the range share an inventory index
+                amount = Math.min(amount, slot.getMaxItemCount(target) - target.getCount());
+                if (amount <= 0 || !ItemStack.areItemsAndComponentsEqual(stack, target)) {
+                    continue;
+                }
+                target.increment(amount);
+                stack.decrement(amount);
+            }
+            slot.markDirty();
+            moved = true;
+        }
+        return moved;
+    }
+
+    /**
+     * @return The player inventory all slots of the range belong to, if they are all main slots
+     * of it, otherwise null
+     */
+    public static PlayerInventory playerTarget(List<Slot> slots, int startIndex, int endIndex) {
+        if (endIndex <= startIndex) {
+            return null;
+        }
+        if (!(slots.get(startIndex).inventory instanceof PlayerInventory inventory)) {
+            return null;
+        }
+        for (int i = startIndex; i < endIndex; i++) {
+            Slot slot = slots.get(i);
+            if (slot.inventory != inventory || slot.getIndex() < 0 || slot.getIndex() >= PlayerSlotIndex.SLOTS) {
+                return null;
+            }
+        }
+        return inventory;
+    }
+
+    /**
+     * Same contract as {@code ScreenHandler.insertItem}, for a range of player main slots as
+     * returned by {@link #playerTarget(List, int, int)}.
+     *
+     * @return true if anything was moved
+     */
+    public static boolean insertIntoPlayer(PlayerInventory inventory, List<Slot> slots, ItemStack stack,
+                                           int startIndex, int endIndex, boolean fromLast) {
+        if (stack.isEmpty()) {
+            return false;
+        }
+
+        // Handler slot index of each main slot covered by the range
+        int[] handlerSlots = new int[PlayerSlotIndex.SLOTS];
+        long covered = 0;
+        for (int i = startIndex; i < endIndex; i++) {
+            int index = slots.get(i).getIndex();
+            if ((covered & (1L << index)) == 0) {
+                handlerSlots[index] = i;
+                covered |= 1L << index;
+            }
+        }
+
+        PlayerSlotIndex slotIndex = ((SlotIndexedInventory) inventory).invoverstack$getPlayerSlotIndex();
+        boolean moved = false;
+
+        if (stack.isStackable()) {
+            long candidates = slotIndex.slotsWithRoom(stack.getItem()) & covered;
+            while (candidates != 0 && !stack.isEmpty()) {
+                int index = next(candidates, handlerSlots, fromLast);
+                candidates &= ~(1L << index);
+
+                Slot slot = slots.get(handlerSlots[index]);
+                ItemStack target = slot.getStack();
+                if (target.isEmpty() || !ItemStack.areItemsAndComponentsEqual(stack, target)) {
+                    continue;
+                }
+                int amount = Math.min(slot.getMaxItemCount(target) - target.getCount(), stack.getCount());
+                if (amount > 0) {
+                    target.increment(amount);
+                    stack.decrement(amount);
+                    slot.markDirty();
+                    moved = true;
+                }
+            }
+        }
+
+        long empty = slotIndex.emptySlots() & covered;
+        while (empty != 0 && !stack.isEmpty()) {
+            int index = next(empty, handlerSlots, fromLast);
+            empty &= ~(1L << index);
+
+            Slot slot = slots.get(handlerSlots[index]);
+            if (!slot.getStack().isEmpty() || !slot.canInsert(stack)) {
+                continue;
+            }
+            int amount = Math.min(slot.getMaxItemCount(stack), stack.getCount());
+            if (amount > 0) {
+                slot.setStack(stack.split(amount));
+                slot.markDirty();
+                moved = true;
+            }
+        }
+
+        return moved;
+    }
+
+    /**
+     * Picks the candidate vanilla would visit first: lowest handler slot, or highest when
+     * inserting from the end of the range.
+     */
+    private static int next(long candidates, int[] handlerSlots, boolean fromLast) {
+        int best = -1;
+        while (candidates != 0) {
+            int index = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            if (best == -1 || (fromLast ? handlerSlots[index] > handlerSlots[best] : handlerSlots[index] < handlerSlots[best])) {
+                best = index;
+            }
+        }
+        return best;
+    }
+}
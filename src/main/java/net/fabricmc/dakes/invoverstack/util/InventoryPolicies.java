@@ -0,0 +1,98 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+import net.fabricmc.dakes.invoverstack.InvOverstackMod;
+import net.fabricmc.dakes.invoverstack.api.InventoryPolicy;
+import net.fabricmc.dakes.invoverstack.api.InventoryPolicyProvider;
+import net.fabricmc.dakes.invoverstack.api.InventoryPolicyRegistry;
+import net.fabricmc.loader.api.FabricLoader;
+import net.fabricmc.loader.api.entrypoint.EntrypointContainer;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.inventory.Inventory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the {@link InventoryPolicy} of inventory classes.
+ * <p>
+ * Registrations come from {@link InventoryPolicyProvider} entrypoints, loaded once during mod
+ * initialization. Each concrete inventory class is resolved once through a {@link ClassValue}
+ * by walking its superclasses, then its interfaces; after that, classifying an inventory is a
+ * single {@code ClassValue.get}, including for classes nobody registered.
+ * </p>
+ */
+public final class InventoryPolicies {
+
+    private static final Map<Class<?>, InventoryPolicy> registered = new ConcurrentHashMap<>();
+
+    private static final ClassValue<InventoryPolicy> resolved = new ClassValue<>() {
+        @Override
+        protected InventoryPolicy computeValue(Class<?> type) {
+            return resolve(type);
+        }
+    };
+
+    static {
+        registered.put(PlayerInventory.class, InventoryPolicy.PLAYER);
+    }
+
+    private InventoryPolicies() {
+    }
+
+    /**
+     * Invokes all policy provider entrypoints. Called once during mod initialization,
+     * before any inventory is classified.
+     */
+    public static void loadProviders() {
+        InventoryPolicyRegistry registry = (type, policy) -> registered.put(type, policy);
+        for (EntrypointContainer<InventoryPolicyProvider> container : FabricLoader.getInstance()
+                .getEntrypointContainers(InventoryPolicyProvider.ENTRYPOINT, InventoryPolicyProvider.class)) {
+            try {
+                container.getEntrypoint().registerPolicies(registry);
+            } catch (Throwable t) {
+                InvOverstackMod.LOGGER.error("Inventory policy provider of {} failed",
+                        container.getProvider().getMetadata().getId(), t);
+            }
+        }
+        if (registered.size() > 1) {
+            InvOverstackMod.LOGGER.info("Registered {} inventory policies", registered.size() - 1);
+        }
+    }
+
+    /**
+     * @param inventory The inventory, not null
+     * @return The policy for the inventory's class
+     */
+    public static InventoryPolicy get(Inventory inventory) {
+        return resolved.get(inventory.getClass());
+    }
+
+    private static InventoryPolicy resolve(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            InventoryPolicy policy = registered.get(current);
+            if (policy != null) {
+                return policy;
+            }
+        }
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            InventoryPolicy policy = resolveInterfaces(current);
+            if (policy != null) {
+                return policy;
+            }
+        }
+        return InventoryPolicy.CONTAINER;
+    }
+
+    private static InventoryPolicy resolveInterfaces(Class<?> type) {
+        for (Class<?> iface : type.getInterfaces()) {
+            InventoryPolicy policy = registered.get(iface);
+            if (policy == null) {
+                policy = resolveInterfaces(iface);
+            }
+            if (policy != null) {
+                return policy;
+            }
+        }
+        return null;
+    }
+}
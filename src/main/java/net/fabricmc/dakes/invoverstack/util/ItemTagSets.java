@@ -0,0 +1,134 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+import net.fabricmc.dakes.invoverstack.InvOverstackMod;
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Item tag rules of a config snapshot, resolved to bitsets keyed by raw item id.
+ * <p>
+ * Two kinds of tag rules exist:
+ * </p>
+ * <ul>
+ *   <li>{@code perItemOverrides} keys starting with {@code #}, e.g. {@code "#minecraft:logs": 1024},
+ *   set the limit of every item in the tag. If an item is in several such tags, the largest
+ *   limit wins. Overrides by item id take precedence.</li>
+ *   <li>{@code enabledItemCategories}, e.g. {@code "#c:ingots"}: if any are listed, only items in
+ *   one of these tags (or with a rule of their own) get raised limits; all others keep
+ *   their vanilla max.</li>
+ * </ul>
+ * <p>
+ * Resolved once per {@link StackLimitTable} build and folded into its entries, so tag rules
+ * cost nothing per lookup. Tags only exist after data packs are loaded; the snapshot is
+ * recompiled whenever tags are (re)loaded, see {@code ConfigManager.onTagsLoaded()}.
+ * </p>
+ */
+public final class ItemTagSets {
+
+    private static final ItemTagSets NONE = new ItemTagSets(new BitSet[0], new int[0], null);
+
+    private final BitSet[] overrideSets;
+    private final int[] overrideLimits;
+    // Union of all enabled categories, null if every item is enabled
+    private final BitSet categories;
+
+    private ItemTagSets(BitSet[] overrideSets, int[] overrideLimits, BitSet categories) {
+        this.overrideSets = overrideSets;
+        this.overrideLimits = overrideLimits;
+        this.categories = categories;
+    }
+
+    /**
+     * Resolves the tag rules of a snapshot against the currently bound tags.
+     *
+     * @param config The snapshot
+     * @return The resolved rules
+     */
+    public static ItemTagSets resolve(CompiledConfig config) {
+        if (!config.usesItemTags()) {
+            return NONE;
+        }
+
+        List<BitSet> sets = new ArrayList<>();
+        List<Integer> limits = new ArrayList<>();
+        for (Map.Entry<String, Integer> override : config.perItemOverrides.entrySet()) {
+            if (!override.getKey().startsWith("#")) {
+                continue;
+            }
+            TagKey<Item> tag = parseTag(override.getKey());
+            if (tag != null) {
+                sets.add(collect(tag, new BitSet()));
+                limits.add(override.getValue());
+            }
+        }
+
+        BitSet categories = null;
+        if (!config.enabledItemCategories.isEmpty()) {
+            categories = new BitSet();
+            for (String category : config.enabledItemCategories) {
+                TagKey<Item> tag = parseTag(category);
+                if (tag != null) {
+                    collect(tag, categories);
+                }
+            }
+        }
+
+        int[] overrideLimits = new int[limits.size()];
+        for (int i = 0; i < overrideLimits.length; i++) {
+            overrideLimits[i] = limits.get(i);
+        }
+        return new ItemTagSets(sets.toArray(new BitSet[0]), overrideLimits, categories);
+    }
+
+    /**
+     * @param rawId The raw item id
+     * @return The largest limit of the override tags containing the item, or -1 if none does
+     */
+    public int tagLimit(int rawId) {
+        int limit = -1;
+        for (int i = 0; i < overrideSets.length; i++) {
+            if (overrideSets[i].get(rawId)) {
+                limit = Math.max(limit, overrideLimits[i]);
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * @param rawId The raw item id
+     * @return true if the item is in an enabled category, or no categories are configured
+     */
+    public boolean isEnabled(int rawId) {
+        return categories == null || categories.get(rawId);
+    }
+
+    /**
+     * Parses {@code #namespace:path} or {@code namespace:path} into an item tag key.
+     */
+    private static TagKey<Item> parseTag(String key) {
+        String id = key.startsWith("#") ? key.substring(1) : key;
+        Identifier identifier = Identifier.tryParse(id);
+        if (identifier == null) {
+            InvOverstackMod.LOGGER.warn("[ItemTagSets] Ignoring invalid item tag '{}'", key);
+            return null;
+        }
+        return TagKey.of(RegistryKeys.ITEM, identifier);
+    }
+
+    private static BitSet collect(TagKey<Item> tag, BitSet into) {
+        for (RegistryEntry<Item> entry : Registries.ITEM.iterateEntries(tag)) {
+            into.set(Registries.ITEM.getRawId(entry.value()));
+        }
+        return into;
+    }
+}
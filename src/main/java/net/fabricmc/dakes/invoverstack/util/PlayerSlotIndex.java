@@ -0,0 +1,247 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
+import net.fabricmc.dakes.invoverstack.InvOverstackMod;
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Incrementally maintained index of the 36 main slots of one {@link PlayerInventory}.
+ * <p>
+ * Maps each item to a bitmask of the slots that hold it and still have room, so finding a
+ * merge target is a hash lookup plus one component comparison per candidate instead of a
+ * scan over all 36 slots. A second bitmap tracks empty slots, so the first free slot is a
+ * single {@link Long#numberOfTrailingZeros(long)}.
+ * </p>
+ * <p>
+ * The index is kept current by {@code PlayerInventoryMixin} (slot writes) and
+ * {@code ItemStackMixin} (count changes on stacks sitting in a slot, see {@link TrackedStack}).
+ * It is rebuilt from scratch whenever the config generation changes, since "has room"
+ * depends on the configured limits. Set {@code verifySlotIndex} in the config to cross-check
+ * every lookup against a full scan.
+ * </p>
+ */
+public final class PlayerSlotIndex implements SlotTracker {
+
+    public static final int SLOTS = PlayerInventory.MAIN_SIZE;
+
+    private final PlayerInventory inventory;
+
+    // Item -> slots holding that item with count below the limit
+    private final Reference2LongOpenHashMap<Item> roomMasks = new Reference2LongOpenHashMap<>();
+    // What the index last saw in each slot (the stack reference and its item, null if empty)
+    private final ItemStack[] slotStacks = new ItemStack[SLOTS];
+    private final Item[] slotItems = new Item[SLOTS];
+    // Bit n set = main slot n is empty
+    private long emptyMask;
+
+    private long generation = -1;
+
+    public PlayerSlotIndex(PlayerInventory inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * Finds the first main slot holding the same item and components as the stack
+     * that is not yet full.
+     *
+     * @param stack The stack to merge
+     * @return The slot index, or -1 if there is none
+     */
+    public int findSlotWithRoom(ItemStack stack) {
+        CompiledConfig config = ensureCurrent();
+        List<ItemStack> main = inventory.getMainStacks();
+
+        int result = -1;
+        long mask = roomMasks.getLong(stack.getItem());
+        while (mask != 0) {
+            int slot = Long.numberOfTrailingZeros(mask);
+            if (ItemStack.areItemsAndComponentsEqual(main.get(slot), stack)) {
+                result = slot;
+                break;
+            }
+            mask &= mask - 1;
+        }
+
+        if (config.verifySlotIndex) {
+            int expected = scanForSlotWithRoom(stack);
+            if (expected != result) {
+                InvOverstackMod.LOGGER.warn("[PlayerSlotIndex] Index returned slot {} but scan found {} for {}, rebuilding",
+                        result, expected, stack);
+                rebuild(config);
+                return expected;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the first empty main slot.
+     *
+     * @return The slot index, or -1 if the main inventory is full
+     */
+    public int findEmptySlot() {
+        CompiledConfig config = ensureCurrent();
+
+        long mask = emptyMask;
+        int result = mask == 0 ? -1 : Long.numberOfTrailingZeros(mask);
+
+        if (config.verifySlotIndex) {
+            int expected = scanForEmptySlot();
+            if (expected != result) {
+                InvOverstackMod.LOGGER.warn("[PlayerSlotIndex] Empty bitmap returned slot {} but scan found {}, rebuilding",
+                        result, expected);
+                rebuild(config);
+                return expected;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Main slots holding the item with count below the limit. Candidates only: callers still
+     * have to compare components, like {@link #findSlotWithRoom(ItemStack)} does.
+     *
+     * @param item The item to look up
+     * @return Bit n set = main slot n is a candidate
+     */
+    public long slotsWithRoom(Item item) {
+        ensureCurrent();
+        return roomMasks.getLong(item);
+    }
+
+    /**
+     * @return Bit n set = main slot n is empty
+     */
+    public long emptySlots() {
+        ensureCurrent();
+        return emptyMask;
+    }
+
+    /**
+     * Called after a main slot has been assigned a (possibly identical) stack.
+     *
+     * @param slot The slot index
+     */
+    public void onSlotChanged(int slot) {
+        if (slot < 0 || slot >= SLOTS || generation == -1) {
+            return;
+        }
+
+        ItemStack previous = slotStacks[slot];
+        ItemStack stack = inventory.getMainStacks().get(slot);
+
+        if (previous != null && previous != stack) {
+            TrackedStack tracked = (TrackedStack) (Object) previous;
+            if (tracked.invoverstack$getTracker() == this && tracked.invoverstack$getTrackedSlot() == slot) {
+                tracked.invoverstack$track(null, -1);
+            }
+        }
+
+        update(slot, stack);
+    }
+
+    @Override
+    public void onCountChanged(int slot, ItemStack stack) {
+        if (slot < 0 || slot >= SLOTS || slotStacks[slot] != stack) {
+            return; // Stale link, the stack is no longer in that slot
+        }
+        update(slot, stack);
+    }
+
+    /**
+     * Drops all indexed state; the next lookup rebuilds it.
+     */
+    public void invalidate() {
+        generation = -1;
+    }
+
+    private CompiledConfig ensureCurrent() {
+        CompiledConfig config = ConfigManager.getConfig();
+        if (generation != config.generation) {
+            rebuild(config);
+        }
+        return config;
+    }
+
+    private void rebuild(CompiledConfig config) {
+        roomMasks.clear();
+        emptyMask = 0;
+        Arrays.fill(slotStacks, null);
+        Arrays.fill(slotItems, null);
+
+        List<ItemStack> main = inventory.getMainStacks();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            update(slot, main.get(slot));
+        }
+
+        generation = config.generation;
+    }
+
+    private void update(int slot, ItemStack stack) {
+        long bit = 1L << slot;
+
+        Item previousItem = slotItems[slot];
+        if (previousItem != null) {
+            long mask = roomMasks.getLong(previousItem) & ~bit;
+            if (mask == 0) {
+                roomMasks.removeLong(previousItem);
+            } else {
+                roomMasks.put(previousItem, mask);
+            }
+        }
+
+        slotStacks[slot] = stack;
+        if (stack.isEmpty()) {
+            slotItems[slot] = null;
+            emptyMask |= bit;
+            return;
+        }
+        emptyMask &= ~bit;
+
+        ((TrackedStack) (Object) stack).invoverstack$track(this, slot);
+
+        Item item = stack.getItem();
+        slotItems[slot] = item;
+        if (stack.getCount() < StackContext.getEffectiveMaxStackSize(stack, inventory)) {
+            roomMasks.put(item, roomMasks.getLong(item) | bit);
+        }
+    }
+
+    /**
+     * Reference implementation used by the consistency check.
+     */
+    private int scanForSlotWithRoom(ItemStack stack) {
+        List<ItemStack> main = inventory.getMainStacks();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            ItemStack slotStack = main.get(slot);
+            if (!slotStack.isEmpty()
+                    && slotStack.getCount() < StackContext.getEffectiveMaxStackSize(slotStack, inventory)
+                    && ItemStack.areItemsAndComponentsEqual(slotStack, stack)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reference implementation used by the consistency check.
+     */
+    private int scanForEmptySlot() {
+        List<ItemStack> main = inventory.getMainStacks();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (main.get(slot).isEmpty()) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,12 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+/**
+ * Duck interface implemented on {@link net.minecraft.entity.player.PlayerInventory} by {@code PlayerInventoryMixin}.
+ * <p>
+ * Exposes the inventory's {@link PlayerSlotIndex}.
+ * </p>
+ */
+public interface SlotIndexedInventory {
+
+    PlayerSlotIndex invoverstack$getPlayerSlotIndex();
+}
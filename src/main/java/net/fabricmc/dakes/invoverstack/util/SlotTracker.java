@@ -0,0 +1,19 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+import net.minecraft.item.ItemStack;
+
+/**
+ * Incrementally maintained per-slot state of an inventory ({@link PlayerSlotIndex},
+ * {@link ContainerFill}) that stacks report their count changes to, see {@link TrackedStack}.
+ */
+public interface SlotTracker {
+
+    /**
+     * Called after the count of a stack tracked in a slot changed, or its components (which
+     * can change its limit).
+     *
+     * @param slot  The slot the stack was tracked in
+     * @param stack The stack that changed
+     */
+    void onCountChanged(int slot, ItemStack stack);
+}
@@ -1,12 +1,11 @@
 package net.fabricmc.dakes.invoverstack.util;
 
-import net.fabricmc.dakes.invoverstack.InvOverstackMod;
-import net.fabricmc.dakes.invoverstack.config.ModConfig;
+import net.fabricmc.dakes.invoverstack.api.InventoryPolicy;
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.inventory.Inventory;
-import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
-import net.minecraft.registry.Registries;
-import net.minecraft.util.Identifier;
 
 /**
  * Utility class for detecting inventory context and determining appropriate stack sizes.
@@ -23,26 +22,23 @@ import net.minecraft.util.Identifier;
  *   <li>Items with durability are handled based on configuration</li>
  * </ul>
  *
- * @see ModConfig
+ * @see CompiledConfig
  */
 public class StackContext {
 
-    // Performance cache: Item -> configured stack size (player inventory context only)
-    // Avoids repeated registry lookups and config checks for the same items
-    private static final java.util.Map<Item, Integer> STACK_SIZE_CACHE = new java.util.concurrent.ConcurrentHashMap<>();
-
     /**
      * Determines if the given inventory is a player inventory.
      * <p>
      * This is the fundamental check that drives the entire mod's behavior.
-     * Only player inventories get the stack size boost.
+     * Only player inventories get the stack size boost. Besides {@code PlayerInventory}, other
+     * mods can classify their inventories as player-like, see {@link InventoryPolicies}.
      * </p>
      *
      * @param inventory The inventory to check
      * @return true if this is a player inventory, false otherwise
      */
     public static boolean isPlayerInventory(Inventory inventory) {
-        return inventory instanceof net.minecraft.entity.player.PlayerInventory;
+        return inventory != null && InventoryPolicies.get(inventory) == InventoryPolicy.PLAYER;
     }
 
     /**
@@ -53,6 +49,7 @@ public class StackContext {
      *   <li>Check if item is blacklisted → return vanilla max</li>
      *   <li>Check if item has durability → return vanilla max (tools shouldn't stack)</li>
      *   <li>Check if inventory is player inventory → return configured max</li>
+     *   <li>Inventories with a custom {@link InventoryPolicy} → return what the policy computes</li>
      *   <li>Otherwise → return vanilla max</li>
      * </ol>
      * </p>
@@ -66,48 +63,126 @@ public class StackContext {
             return 64;
         }
 
-        Item item = stack.getItem();
-        int vanillaMax = item.getMaxCount();
+        // Flat item -> packed limit table owned by the active config snapshot
+        StackLimitTable table = ConfigManager.getConfig().getLimitTable();
+        InventoryPolicy policy = inventory == null ? InventoryPolicy.PLAYER : InventoryPolicies.get(inventory);
+        return getEffectiveMaxStackSize(table, policy, stack, inventory);
+    }
 
-        // Check inventory context FIRST - containers always use vanilla max
-        if (inventory != null && !isPlayerInventory(inventory)) {
-            return vanillaMax;
-        }
+    /**
+     * Core of {@link #getEffectiveMaxStackSize(ItemStack, Inventory)} with the table and
+     * policy already looked up, so bulk queries resolve them once per inventory.
+     */
+    private static int getEffectiveMaxStackSize(StackLimitTable table, InventoryPolicy policy, ItemStack stack, Inventory inventory) {
+        int entry = table.get(stack.getItem());
 
-        // Check if item has durability - these never stack beyond vanilla
-        if (stack.isDamageable()) {
-            return vanillaMax;
+        // Containers always use vanilla max
+        if (policy == InventoryPolicy.CONTAINER) {
+            return StackLimitTable.vanillaMax(entry);
         }
 
-        // Check cache to avoid repeated registry/config lookups
-        Integer cached = STACK_SIZE_CACHE.get(item);
-        if (cached != null) {
-            return cached;
+        // Items with component rules, or above vanilla, look at the stack itself (cached per stack)
+        // Blacklisted and damageable items already store their vanilla max as the limit
+        int playerLimit = StackLimitTable.dependsOnComponents(entry)
+                ? table.componentLimit(stack, entry)
+                : StackLimitTable.limit(entry);
+
+        if (policy == InventoryPolicy.PLAYER) {
+            return playerLimit;
         }
+        return policy.getMaxStackSize(inventory, stack, playerLimit, StackLimitTable.vanillaMax(entry));
+    }
 
-        // Cache miss - do the expensive lookup once and cache it
-        ModConfig config = InvOverstackMod.getConfig();
-        if (config == null) {
-            return vanillaMax;
+    /**
+     * Fills {@code limits} with the effective limit of each slot of an inventory, as
+     * {@code Slot.getMaxItemCount()} would return it for the stack currently in the slot
+     * (64 for empty slots).
+     *
+     * @param inventory The inventory
+     * @param limits    Receives one limit per slot; slots beyond its length are skipped
+     * @return The number of entries written
+     */
+    public static int getEffectiveMaxStackSizes(Inventory inventory, int[] limits) {
+        StackLimitTable table = ConfigManager.getConfig().getLimitTable();
+        InventoryPolicy policy = InventoryPolicies.get(inventory);
+
+        int size = Math.min(inventory.size(), limits.length);
+        for (int slot = 0; slot < size; slot++) {
+            ItemStack stack = inventory.getStack(slot);
+            limits[slot] = stack.isEmpty() ? 64 : getEffectiveMaxStackSize(table, policy, stack, inventory);
         }
+        return size;
+    }
 
-        // Registry lookup and string conversion
-        Identifier itemId = Registries.ITEM.getId(item);
-        String itemIdString = itemId.toString();
+    /**
+     * Counts how many items of a stack fit into an inventory, merging into equal stacks and
+     * filling empty slots the stack is valid for, each up to its effective limit. Other than
+     * for player inventories, the limit is also capped by {@code Inventory.getMaxCount(stack)}
+     * (the chiseled bookshelf and the crafter hold one item per slot), like real inserts. Player
+     * inventories only count their main slots and the offhand (for merging), like pickups do.
+     *
+     * @param inventory The inventory
+     * @param stack     The stack to insert; it is not modified
+     * @return How many of the stack's items fit, at most its count
+     */
+    public static int countFitting(Inventory inventory, ItemStack stack) {
+        if (stack.isEmpty()) {
+            return 0;
+        }
 
-        // Check blacklist
-        if (config.itemBlacklist.contains(itemIdString)) {
-            STACK_SIZE_CACHE.put(item, vanillaMax);
-            return vanillaMax;
+        StackLimitTable table = ConfigManager.getConfig().getLimitTable();
+        InventoryPolicy policy = InventoryPolicies.get(inventory);
+        int limit = getEffectiveMaxStackSize(table, policy, stack, inventory);
+        if (policy != InventoryPolicy.PLAYER) {
+            // Real inserts (hoppers, droppers) are also capped per inventory, e.g. 1 for crafters
+            limit = Math.min(limit, inventory.getMaxCount(stack));
+        }
+        int wanted = stack.getCount();
+
+        long fitting = 0;
+        if (inventory instanceof PlayerInventory player) {
+            // Only the main slots that can take the item are visited, straight from the slot index
+            PlayerSlotIndex slotIndex = ((SlotIndexedInventory) player).invoverstack$getPlayerSlotIndex();
+            long candidates = slotIndex.emptySlots();
+            if (stack.isStackable()) {
+                candidates |= slotIndex.slotsWithRoom(stack.getItem());
+            }
+            while (candidates != 0 && fitting < wanted) {
+                int slot = Long.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                fitting += roomFor(inventory, slot, stack, limit, true);
+            }
+            if (fitting < wanted) {
+                fitting += roomFor(inventory, PlayerInventory.OFF_HAND_SLOT, stack, limit, false);
+            }
+        } else {
+            for (int slot = 0; slot < inventory.size() && fitting < wanted; slot++) {
+                fitting += roomFor(inventory, slot, stack, limit, true);
+            }
         }
+        return (int) Math.min(fitting, wanted);
+    }
 
-        // Get configured stack size
-        int configuredSize = config.getStackSizeForItem(itemIdString);
-        int result = (configuredSize == -1) ? vanillaMax : configuredSize;
+    private static int roomFor(Inventory inventory, int slot, ItemStack stack, int limit, boolean fillEmpty) {
+        ItemStack existing = inventory.getStack(slot);
+        if (existing.isEmpty()) {
+            return fillEmpty && inventory.isValid(slot, stack) ? limit : 0;
+        }
+        if (existing.getCount() < limit && ItemStack.areItemsAndComponentsEqual(existing, stack)) {
+            return limit - existing.getCount();
+        }
+        return 0;
+    }
 
-        // Cache the result for future calls
-        STACK_SIZE_CACHE.put(item, result);
-        return result;
+    /**
+     * Rebuilds the limit table of the active config snapshot.
+     * <p>
+     * Called once the server is starting, since registries are frozen by then. Clients
+     * connected to a remote server build the table lazily on first use.
+     * </p>
+     */
+    public static void rebuildLimitTable() {
+        ConfigManager.onRegistriesFrozen();
     }
 
     /**
@@ -136,15 +211,8 @@ public class StackContext {
             return false;
         }
 
-        ModConfig config = InvOverstackMod.getConfig();
-        if (config == null) {
-            return false;
-        }
-
-        Item item = stack.getItem();
-        Identifier itemId = Registries.ITEM.getId(item);
-
-        return config.itemBlacklist.contains(itemId.toString());
+        int entry = ConfigManager.getConfig().getLimitTable().get(stack.getItem());
+        return StackLimitTable.isBlacklisted(entry);
     }
 
     /**
@@ -0,0 +1,214 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+import net.fabricmc.dakes.invoverstack.metrics.Metrics;
+import net.minecraft.component.DataComponentTypes;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.registry.Registries;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flat, immutable table of per-item stack limits indexed by raw registry id.
+ * <p>
+ * Each entry packs everything the hot path needs into a single {@code int}:
+ * </p>
+ * <ul>
+ *   <li>bits 0-15: effective max stack size in a player inventory</li>
+ *   <li>bits 16-23: vanilla max stack size (the item's default {@code max_stack_size})</li>
+ *   <li>bit 24: item is blacklisted</li>
+ *   <li>bit 25: item is damageable by default</li>
+ *   <li>bit 26: item has component rules, see {@link ComponentRules}</li>
+ * </ul>
+ * <p>
+ * Blacklisted and damageable items already have their vanilla max stored as the player limit,
+ * so a lookup is a single array load. Damageability is a property of the stack, though; stacks
+ * of other items are checked once and cached, see {@link #componentLimit(ItemStack, int)}.
+ * Wildcard and formula rules ({@code LimitRules}) and item tag rules ({@link ItemTagSets}) are
+ * resolved while building and folded into the entries. Tables are never mutated after
+ * construction; each {@link CompiledConfig} snapshot owns its table, so publishing a new
+ * snapshot swaps both.
+ * </p>
+ */
+public final class StackLimitTable {
+
+    public static final int LIMIT_MASK = 0xFFFF;
+    public static final int VANILLA_SHIFT = 16;
+    public static final int VANILLA_MASK = 0xFF;
+    public static final int FLAG_BLACKLISTED = 1 << 24;
+    public static final int FLAG_DAMAGEABLE = 1 << 25;
+    public static final int FLAG_COMPONENT_RULES = 1 << 26;
+
+    private static final AtomicInteger IDS = new AtomicInteger();
+
+    private final int[] entries;
+    private final CompiledConfig config;
+    private final ItemTagSets tags;
+    private final ComponentRules componentRules;
+    private final long generation;
+    // Unique per build, also across rebuilds of the same snapshot; keys the per-stack component cache
+    private final int id;
+
+    private StackLimitTable(int[] entries, CompiledConfig config, ItemTagSets tags, ComponentRules componentRules) {
+        this.entries = entries;
+        this.config = config;
+        this.tags = tags;
+        this.componentRules = componentRules;
+        this.generation = config.generation;
+        this.id = IDS.incrementAndGet();
+    }
+
+    /**
+     * Builds a table for every item currently in the registry.
+     * Should be called once registries are frozen; items registered later fall back to
+     * {@link #computeEntry(Item, CompiledConfig, ItemTagSets, ComponentRules)} on every lookup until the next rebuild.
+     *
+     * @param config The configuration to resolve limits from
+     * @return The new table
+     */
+    public static StackLimitTable build(CompiledConfig config) {
+        int[] entries = new int[Registries.ITEM.size()];
+        ItemTagSets tags = ItemTagSets.resolve(config);
+        ComponentRules componentRules = ComponentRules.resolve(config);
+
+        for (Item item : Registries.ITEM) {
+            int rawId = Registries.ITEM.getRawId(item);
+            if (rawId < 0 || rawId >= entries.length) {
+                continue;
+            }
+            entries[rawId] = computeEntry(item, config, tags, componentRules);
+            ((IndexedItem) item).invoverstack$setLimitIndex(rawId);
+        }
+
+        return new StackLimitTable(entries, config, tags, componentRules);
+    }
+
+    /**
+     * Resolves the packed entry for a single item. This is the slow path and does the
+     * registry and config string lookups the table exists to avoid.
+     */
+    static int computeEntry(Item item, CompiledConfig config, ItemTagSets tags, ComponentRules componentRules) {
+        int vanillaMax = Math.min(item.getMaxCount(), VANILLA_MASK);
+        int flags = 0;
+        int limit;
+
+        String itemId = Registries.ITEM.getId(item).toString();
+
+        if (item.getComponents().contains(DataComponentTypes.MAX_DAMAGE)) {
+            flags |= FLAG_DAMAGEABLE;
+        }
+
+        int configuredSize = config.getStackSizeForItem(itemId);
+        if (configuredSize == -1) {
+            flags |= FLAG_BLACKLISTED;
+        } else if (!config.perItemOverrides.containsKey(itemId)) {
+            int rawId = Registries.ITEM.getRawId(item);
+            int ruleLimit = config.getLimitRules().resolve(itemId, vanillaMax);
+            int tagLimit = ruleLimit > 0 ? -1 : tags.tagLimit(rawId);
+            if (ruleLimit > 0) {
+                configuredSize = Math.min(ruleLimit, config.maxAllowedStackSize);
+            } else if (tagLimit > 0) {
+                configuredSize = Math.min(tagLimit, config.maxAllowedStackSize);
+            } else if (!tags.isEnabled(rawId)) {
+                configuredSize = vanillaMax;
+            }
+        }
+
+        if (flags != 0) {
+            limit = vanillaMax;
+        } else {
+            limit = Math.min(configuredSize, LIMIT_MASK);
+            if (componentRules.hasRules(Registries.ITEM.getRawId(item))) {
+                flags |= FLAG_COMPONENT_RULES;
+            }
+        }
+
+        return limit | (vanillaMax << VANILLA_SHIFT) | flags;
+    }
+
+    /**
+     * Gets the packed entry for an item.
+     *
+     * @param item The item to look up
+     * @return The packed entry, see class documentation for the layout
+     */
+    public int get(Item item) {
+        int index = ((IndexedItem) item).invoverstack$getLimitIndex();
+        if (index >= 0 && index < entries.length) {
+            if (Metrics.isEnabled()) {
+                Metrics.LIMIT_TABLE_HITS.increment();
+            }
+            return entries[index];
+        }
+        if (Metrics.isEnabled()) {
+            Metrics.LIMIT_TABLE_MISSES.increment();
+        }
+        return computeEntry(item, config, tags, componentRules);
+    }
+
+    /**
+     * Gets the player inventory limit of a stack whose entry {@link #dependsOnComponents(int)}.
+     * Stacks that are damageable through their own components stay at the vanilla max, the
+     * rest get the component rules. Evaluated once per stack and table; later calls hit the
+     * cache on the stack.
+     *
+     * @param stack The stack
+     * @param entry The packed entry of the stack's item
+     * @return The limit for this stack
+     */
+    public int componentLimit(ItemStack stack, int entry) {
+        ComponentLimitCache cache = (ComponentLimitCache) (Object) stack;
+        if (cache.invoverstack$getComponentLimitTableId() == id) {
+            return cache.invoverstack$getComponentLimit();
+        }
+        int limit = stack.isDamageable()
+                ? vanillaMax(entry)
+                : Math.min(componentRules.evaluate(stack, limit(entry)), LIMIT_MASK);
+        cache.invoverstack$setComponentLimit(id, limit);
+        return limit;
+    }
+
+    public ItemTagSets getTags() {
+        return tags;
+    }
+
+    public CompiledConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return The generation of the config snapshot this table was built from
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    public static int limit(int entry) {
+        return entry & LIMIT_MASK;
+    }
+
+    public static int vanillaMax(int entry) {
+        return (entry >>> VANILLA_SHIFT) & VANILLA_MASK;
+    }
+
+    public static boolean isBlacklisted(int entry) {
+        return (entry & FLAG_BLACKLISTED) != 0;
+    }
+
+    public static boolean isDamageable(int entry) {
+        return (entry & FLAG_DAMAGEABLE) != 0;
+    }
+
+    public static boolean hasComponentRules(int entry) {
+        return (entry & FLAG_COMPONENT_RULES) != 0;
+    }
+
+    /**
+     * Whether the player limit of a stack can differ from {@link #limit(int)}: the item has
+     * component rules, or it stacks beyond vanilla and a stack could gain {@code max_damage}.
+     */
+    public static boolean dependsOnComponents(int entry) {
+        return (entry & FLAG_COMPONENT_RULES) != 0 || limit(entry) > vanillaMax(entry);
+    }
+}
@@ -0,0 +1,195 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.fabricmc.dakes.invoverstack.config.CompiledConfig;
+import net.fabricmc.dakes.invoverstack.config.ConfigManager;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.ItemScatterer;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayDeque;
+import java.util.Set;
+
+/**
+ * Background normalizer (autoNormalize) for stacks above their current limit.
+ * <p>
+ * After a limit is lowered (by {@code /invoverstack set}, a reload, or a changed config file),
+ * every online player inventory and every loaded container is queued. Each tick the queue is
+ * worked through slot by slot until normalizeBudgetMicros is used up. The next tick resumes at
+ * the same slot, so a limit change never causes a lag spike. Players are also checked when
+ * they join, and containers when their chunk loads.
+ * </p>
+ * <p>
+ * Oversized stacks are clamped to {@link StackContext#getSafeStackCount}. Nothing is deleted:
+ * the excess goes to other slots of the same inventory, or is dropped at the player or the
+ * container. Containers are only tracked while autoNormalize is enabled. Those loaded before
+ * it was turned on are checked the next time their chunk loads. Server thread only.
+ * </p>
+ */
+public final class StackNormalizer {
+
+    private record Target(Object owner, Inventory inventory) {
+
+        boolean isValid() {
+            if (owner instanceof ServerPlayerEntity player) {
+                return !player.isRemoved();
+            }
+            return !((BlockEntity) owner).isRemoved();
+        }
+    }
+
+    private static final ArrayDeque<Target> queue = new ArrayDeque<>();
+    private static final Set<Object> queued = new ReferenceOpenHashSet<>();
+    private static final Set<BlockEntity> containers = new ReferenceOpenHashSet<>();
+
+    // Set when a snapshot is published, the next tick queues everything again
+    private static volatile boolean rescan;
+
+    // Target being worked on and the next slot to check
+    private static Target current;
+    private static int cursor;
+
+    private StackNormalizer() {
+    }
+
+    /**
+     * Called whenever a config snapshot is published.
+     */
+    public static void onConfigPublished(CompiledConfig config) {
+        if (config.autoNormalize) {
+            rescan = true;
+        }
+    }
+
+    public static void onPlayerJoin(ServerPlayerEntity player) {
+        if (ConfigManager.getConfig().autoNormalize) {
+            enqueue(player, player.getInventory());
+        }
+    }
+
+    public static void onBlockEntityLoad(BlockEntity blockEntity, ServerWorld world) {
+        if (blockEntity instanceof Inventory inventory && ConfigManager.getConfig().autoNormalize) {
+            containers.add(blockEntity);
+            enqueue(blockEntity, inventory);
+        }
+    }
+
+    public static void onBlockEntityUnload(BlockEntity blockEntity, ServerWorld world) {
+        containers.remove(blockEntity);
+    }
+
+    /**
+     * Normalizes queued inventories within the per-tick budget. Called at the end of every server tick.
+     */
+    public static void tick(MinecraftServer server) {
+        CompiledConfig config = ConfigManager.getConfig();
+        if (!config.autoNormalize) {
+            if (current != null || !queue.isEmpty() || !containers.isEmpty()) {
+                clear();
+            }
+            return;
+        }
+
+        if (rescan) {
+            rescan = false;
+            for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+                enqueue(player, player.getInventory());
+            }
+            for (BlockEntity blockEntity : containers) {
+                enqueue(blockEntity, (Inventory) blockEntity);
+            }
+        }
+
+        if (current == null && queue.isEmpty()) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + config.normalizeBudgetMicros * 1000L;
+        do {
+            if (current == null) {
+                current = queue.poll();
+                if (current == null) {
+                    return;
+                }
+                queued.remove(current.owner());
+                cursor = 0;
+            }
+
+            if (!current.isValid() || cursor >= current.inventory().size()) {
+                current = null;
+                continue;
+            }
+            normalizeSlot(current, cursor++);
+        } while (System.nanoTime() < deadline);
+    }
+
+    /**
+     * Drops all queued work. Called when autoNormalize is turned off and when the server stops.
+     */
+    public static void clear() {
+        queue.clear();
+        queued.clear();
+        containers.clear();
+        current = null;
+    }
+
+    private static void enqueue(Object owner, Inventory inventory) {
+        if (queued.add(owner)) {
+            queue.add(new Target(owner, inventory));
+        }
+    }
+
+    private static void normalizeSlot(Target target, int slot) {
+        Inventory inventory = target.inventory();
+        ItemStack stack = inventory.getStack(slot);
+        if (stack.isEmpty()) {
+            return;
+        }
+
+        int safeCount = StackContext.getSafeStackCount(stack, inventory);
+        if (safeCount >= stack.getCount()) {
+            return;
+        }
+
+        ItemStack excess = stack.split(stack.getCount() - safeCount);
+        inventory.markDirty();
+        DebugLogger.debug("[StackNormalizer] Clamped slot %d to %d", slot, safeCount);
+
+        if (target.owner() instanceof ServerPlayerEntity player) {
+            player.getInventory().offerOrDrop(excess);
+        } else {
+            relocate((BlockEntity) target.owner(), inventory, excess);
+        }
+    }
+
+    /**
+     * Moves the excess of a container slot into other slots of the container, dropping what
+     * does not fit at the container.
+     */
+    private static void relocate(BlockEntity blockEntity, Inventory inventory, ItemStack excess) {
+        int limit = StackContext.getEffectiveMaxStackSize(excess, inventory);
+        for (int slot = 0; slot < inventory.size() && !excess.isEmpty(); slot++) {
+            ItemStack stack = inventory.getStack(slot);
+            if (stack.isEmpty()) {
+                if (inventory.isValid(slot, excess)) {
+                    inventory.setStack(slot, excess.split(limit));
+                }
+            } else if (stack.getCount() < limit && ItemStack.areItemsAndComponentsEqual(stack, excess)) {
+                int amount = Math.min(limit - stack.getCount(), excess.getCount());
+                stack.increment(amount);
+                excess.decrement(amount);
+            }
+        }
+        inventory.markDirty();
+
+        if (!excess.isEmpty() && blockEntity.getWorld() != null) {
+            BlockPos pos = blockEntity.getPos();
+            ItemScatterer.spawn(blockEntity.getWorld(), pos.getX(), pos.getY(), pos.getZ(), excess);
+        }
+    }
+}
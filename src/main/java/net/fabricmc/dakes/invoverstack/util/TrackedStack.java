@@ -0,0 +1,18 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+/**
+ * Duck interface implemented on {@link net.minecraft.item.ItemStack} by {@code ItemStackMixin}.
+ * <p>
+ * Links a stack to the {@link SlotTracker} slot it currently sits in, so count changes
+ * made directly on the stack (increment, decrement, split) keep the tracker up to date.
+ * A stack sits in at most one slot, so it has at most one tracker.
+ * </p>
+ */
+public interface TrackedStack {
+
+    SlotTracker invoverstack$getTracker();
+
+    int invoverstack$getTrackedSlot();
+
+    void invoverstack$track(SlotTracker tracker, int slot);
+}
@@ -0,0 +1,27 @@
+package net.fabricmc.dakes.invoverstack.util;
+
+/**
+ * Pure arithmetic shared by the transfer mixins and {@code TraceVerifier}, which recomputes
+ * recorded amounts with it.
+ */
+public final class TransferMath {
+
+    private TransferMath() {
+    }
+
+    /**
+     * Computes how many items move into a slot.
+     *
+     * @param offered      Items available to move
+     * @param currentCount Items already in the target slot
+     * @param limit        Max stack size of the target slot
+     * @return Items to move, never negative
+     */
+    public static int transferAmount(int offered, int currentCount, int limit) {
+        int space = limit - currentCount;
+        if (space <= 0 || offered <= 0) {
+            return 0;
+        }
+        return Math.min(offered, space);
+    }
+}